@@ -0,0 +1,45 @@
+package com.api.imageIngestion.benchmark;
+
+import com.api.imageIngestion.processing.ImageDecoder;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Access to the checked-in benchmark images under src/jmh/resources/corpus
+ */
+final class Corpus {
+
+    private Corpus() {
+    }
+
+    /**
+     * Copy a corpus image to a temporary file, since uploads are decoded from disk
+     */
+    static Path extract(String name) {
+        try (InputStream in = Corpus.class.getResourceAsStream("/corpus/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No corpus image " + name);
+            }
+            Path file = Files.createTempFile("corpus-", "-" + name);
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            file.toFile().deleteOnExit();
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static BufferedImage decode(String name) {
+        try {
+            return new ImageDecoder().decode(extract(name));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.api.imageIngestion.benchmark;
+
+import com.api.imageIngestion.processing.ImageDecoder;
+import com.api.imageIngestion.processing.ImageHeader;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Header probing and full decode of each corpus format, from a spooled file (the upload path) and from memory
+ * (the rendition path)
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecodeBenchmark {
+
+    @Param({"small-640x480.jpg", "medium-1920x1080.jpg", "large-4000x3000.jpg", "portrait-1080x1920.jpg",
+            "alpha-800x600.png", "indexed-480x360.gif", "uncompressed-640x360.bmp"})
+    public String image;
+
+    private final ImageDecoder decoder = new ImageDecoder();
+    private Path file;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        ImageIO.setUseCache(false);
+        file = Corpus.extract(image);
+        bytes = Files.readAllBytes(file);
+    }
+
+    @Benchmark
+    public ImageHeader probe() throws IOException {
+        return decoder.probe(file);
+    }
+
+    @Benchmark
+    public BufferedImage decodeFile() throws IOException {
+        return decoder.decode(file);
+    }
+
+    @Benchmark
+    public BufferedImage decodeBytes() throws IOException {
+        return decoder.decode(bytes);
+    }
+}
@@ -0,0 +1,69 @@
+package com.api.imageIngestion.benchmark;
+
+import com.api.imageIngestion.config.ImageProcessingProperties;
+import com.api.imageIngestion.processing.JpegSettings;
+import com.api.imageIngestion.processing.ThumbnailEncoder;
+import com.api.imageIngestion.processing.ThumbnailResampler;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JPEG encoding of thumbnails per encoder setting, against plain ImageIO.write as the baseline. The encoded size of
+ * each setting is printed at the end of its trial so time and size can be weighed together.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncodeBenchmark {
+
+    @Param({"150", "640"})
+    public int width;
+
+    @Param({"0.75", "0.9"})
+    public float quality;
+
+    @Param({"false", "true"})
+    public boolean progressive;
+
+    @Param({"false", "true"})
+    public boolean optimizeHuffman;
+
+    private final ThumbnailEncoder encoder = new ThumbnailEncoder();
+    private BufferedImage thumbnail;
+    private JpegSettings settings;
+
+    @Setup
+    public void setUp() {
+        ImageIO.setUseCache(false);
+        BufferedImage source = Corpus.decode("medium-1920x1080.jpg");
+        int height = (int) ((double) width / source.getWidth() * source.getHeight());
+        thumbnail = new ThumbnailResampler(new ImageProcessingProperties()).resize(source, width, height);
+        settings = new JpegSettings(quality, progressive, optimizeHuffman);
+    }
+
+    @TearDown
+    public void reportSize() throws IOException {
+        System.out.printf("%n[size] %dpx %s: %d bytes (ImageIO.write default: %d bytes)%n",
+                width, settings, encode().length, imageIoWrite().length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return encoder.encode(thumbnail, settings, "benchmark");
+    }
+
+    @Benchmark
+    public byte[] imageIoWrite() throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(thumbnail, "jpg", baos);
+        return baos.toByteArray();
+    }
+}
@@ -0,0 +1,123 @@
+package com.api.imageIngestion.benchmark;
+
+import com.api.imageIngestion.dto.ImageSetMetadataResponseDTO;
+import com.api.imageIngestion.dto.ImageSetResponseDTO;
+import com.api.imageIngestion.entity.Image;
+import com.api.imageIngestion.entity.ImageSet;
+import com.api.imageIngestion.entity.ImageThumbnail;
+import com.api.imageIngestion.entity.ThumbnailPointer;
+import com.api.imageIngestion.mapper.ImageSetMapper;
+import com.api.imageIngestion.repository.projection.ImageMetadataView;
+import com.api.imageIngestion.repository.projection.ImageSetSummary;
+import com.api.imageIngestion.repository.projection.ThumbnailSizeView;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping and JSON serialization of the image set read endpoints for small and large sets
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    private static final String[][] PROFILES = {{"64", "64"}, {"150", "150"}, {"320", "320"}, {"640", "640"}};
+    //typical size of an encoded 150px thumbnail, which the full response inlines as base64
+    private static final int DEFAULT_THUMBNAIL_BYTES = 6 * 1024;
+
+    @Param({"10", "1000"})
+    public int imageCount;
+
+    private final ImageSetMapper mapper = new ImageSetMapper();
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    private ImageSet imageSet;
+    private ImageSetSummary summary;
+    private List<ImageMetadataView> metadata;
+    private List<ThumbnailSizeView> sizes;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        imageSet = ImageSet.builder().setId(1L).setName("benchmark-set").createdAt(now).images(new ArrayList<>()).build();
+        metadata = new ArrayList<>(imageCount);
+        sizes = new ArrayList<>(imageCount * PROFILES.length);
+
+        for (int i = 0; i < imageCount; i++) {
+            long imgId = i + 1;
+            byte[] thumbnail = new byte[DEFAULT_THUMBNAIL_BYTES];
+            random.nextBytes(thumbnail);
+            Image image = Image.builder()
+                    .imgId(imgId).imgName("image-" + i + ".jpg").timestamp(now)
+                    .width(4000).height(3000).aspectRatio(4000 / 3000.0)
+                    .thumbnail(thumbnail).imageSet(imageSet)
+                    .build();
+            for (String[] profile : PROFILES) {
+                int width = Integer.parseInt(profile[1]);
+                image.getThumbnails().add(ImageThumbnail.builder()
+                        .image(image).profile(profile[0]).width(width).height(width * 3 / 4)
+                        .pointer(new ThumbnailPointer("default", 0, imgId * 100_000, DEFAULT_THUMBNAIL_BYTES))
+                        .contentHash(Long.toHexString(random.nextLong()))
+                        .build());
+                sizes.add(new Size(imgId, profile[0], width, width * 3 / 4));
+            }
+            imageSet.getImages().add(image);
+            metadata.add(new Metadata(imgId, image.getImgName(), now, 4000, 3000, 4000 / 3000.0));
+        }
+        summary = new Summary(1L, "benchmark-set", now);
+    }
+
+    @Benchmark
+    public ImageSetResponseDTO mapFullSet() {
+        return mapper.toResponseDTO(imageSet);
+    }
+
+    @Benchmark
+    public byte[] serializeFullSet() {
+        return objectMapper.writeValueAsBytes(mapper.toResponseDTO(imageSet));
+    }
+
+    @Benchmark
+    public ImageSetMetadataResponseDTO mapMetadata() {
+        return mapper.toImageSetMetadataResponseDTO(summary, metadata, sizes);
+    }
+
+    @Benchmark
+    public byte[] serializeMetadata() {
+        return objectMapper.writeValueAsBytes(mapper.toImageSetMetadataResponseDTO(summary, metadata, sizes));
+    }
+
+    private record Summary(Long setId, String setName, LocalDateTime createdAt) implements ImageSetSummary {
+        public Long getSetId() { return setId; }
+        public String getSetName() { return setName; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+    }
+
+    private record Metadata(Long imgId, String imgName, LocalDateTime timestamp, Integer width, Integer height,
+                            Double aspectRatio) implements ImageMetadataView {
+        public Long getImgId() { return imgId; }
+        public String getImgName() { return imgName; }
+        public LocalDateTime getTimestamp() { return timestamp; }
+        public Integer getWidth() { return width; }
+        public Integer getHeight() { return height; }
+        public Double getAspectRatio() { return aspectRatio; }
+    }
+
+    private record Size(Long imgId, String profile, Integer width, Integer height) implements ThumbnailSizeView {
+        public Long getImgId() { return imgId; }
+        public String getProfile() { return profile; }
+        public Integer getWidth() { return width; }
+        public Integer getHeight() { return height; }
+    }
+}
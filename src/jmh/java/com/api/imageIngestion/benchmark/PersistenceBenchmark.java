@@ -0,0 +1,113 @@
+package com.api.imageIngestion.benchmark;
+
+import com.api.imageIngestion.ImageIngestionApplication;
+import com.api.imageIngestion.entity.Image;
+import com.api.imageIngestion.entity.ImageSet;
+import com.api.imageIngestion.entity.ImageThumbnail;
+import com.api.imageIngestion.entity.ThumbnailPointer;
+import com.api.imageIngestion.repository.ImageSetRepository;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cascade insert of one image set with its images and one thumbnail row per size profile, through the application's
+ * own repository and transaction setup against in-memory H2. A batch size of 1 stands in for per-row inserts.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+
+    private static final String[] PROFILES = {"64", "150", "320", "640"};
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    @Param({"100", "500"})
+    public int imageCount;
+
+    private ConfigurableApplicationContext context;
+    private ImageSetRepository imageSetRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(ImageIngestionApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:persistence-benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "thumbnail-store.directory=" + Files.createTempDirectory("benchmark-thumbnails"),
+                        "ingest-job.spool-directory=" + Files.createTempDirectory("benchmark-spool"),
+                        "ingest-job.worker-enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        imageSetRepository = context.getBean(ImageSetRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Start every iteration from empty tables, so the measured inserts do not slow down as the database grows
+     */
+    @Setup(Level.Iteration)
+    public void clearTables() {
+        jdbcTemplate.execute("delete from image_thumbnails");
+        jdbcTemplate.execute("delete from images");
+        jdbcTemplate.execute("delete from image_sets");
+    }
+
+    @Benchmark
+    public Long saveImageSet() {
+        return transactionTemplate.execute(status -> {
+            Long setId = imageSetRepository.save(newSet()).getSetId();
+            entityManager.flush();
+            entityManager.clear();
+            return setId;
+        });
+    }
+
+    private ImageSet newSet() {
+        ImageSet set = ImageSet.builder().setName("benchmark-set").build();
+        List<Image> images = new ArrayList<>(imageCount);
+        for (int i = 0; i < imageCount; i++) {
+            Image image = Image.builder()
+                    .imgName("image-" + i + ".jpg").width(4000).height(3000).aspectRatio(4000 / 3000.0)
+                    .imageSet(set)
+                    .build();
+            for (String profile : PROFILES) {
+                int width = Integer.parseInt(profile);
+                image.getThumbnails().add(ImageThumbnail.builder()
+                        .image(image).profile(profile).width(width).height(width * 3 / 4)
+                        .pointer(new ThumbnailPointer("default", 0, (long) i * 8192, 8192))
+                        .contentHash(Integer.toHexString(i) + profile)
+                        .build());
+            }
+            images.add(image);
+        }
+        set.setImages(images);
+        return set;
+    }
+}
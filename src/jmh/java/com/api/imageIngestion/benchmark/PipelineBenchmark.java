@@ -0,0 +1,52 @@
+package com.api.imageIngestion.benchmark;
+
+import com.api.imageIngestion.config.ImageProcessingProperties;
+import com.api.imageIngestion.metrics.IngestionMetrics;
+import com.api.imageIngestion.processing.ImageDecoder;
+import com.api.imageIngestion.processing.RenderedThumbnail;
+import com.api.imageIngestion.processing.ThumbnailEncoder;
+import com.api.imageIngestion.processing.ThumbnailRenderer;
+import com.api.imageIngestion.processing.ThumbnailResampler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The complete per-image work of an upload: probe, decode from the spooled file and render every thumbnail profile
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+    @Param({"small-640x480.jpg", "medium-1920x1080.jpg", "large-4000x3000.jpg", "portrait-1080x1920.jpg",
+            "alpha-800x600.png", "indexed-480x360.gif", "uncompressed-640x360.bmp"})
+    public String image;
+
+    private final ImageProcessingProperties properties = new ImageProcessingProperties();
+    private final ImageDecoder decoder = new ImageDecoder();
+    private final ThumbnailRenderer renderer =
+            new ThumbnailRenderer(new ThumbnailResampler(properties), new ThumbnailEncoder(),
+                    new IngestionMetrics(new SimpleMeterRegistry()), properties);
+    private Path file;
+
+    @Setup
+    public void setUp() {
+        ImageIO.setUseCache(false);
+        file = Corpus.extract(image);
+    }
+
+    @Benchmark
+    public List<RenderedThumbnail> processImage() throws IOException {
+        decoder.probe(file);
+        return renderer.render(decoder.decode(file));
+    }
+}
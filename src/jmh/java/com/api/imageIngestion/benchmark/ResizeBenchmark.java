@@ -0,0 +1,47 @@
+package com.api.imageIngestion.benchmark;
+
+import com.api.imageIngestion.config.ImageProcessingProperties;
+import com.api.imageIngestion.processing.ResampleQuality;
+import com.api.imageIngestion.processing.ThumbnailResampler;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Downscaling of decoded rasters to the largest and the default thumbnail width, per quality tier
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResizeBenchmark {
+
+    @Param({"small-640x480.jpg", "medium-1920x1080.jpg", "large-4000x3000.jpg", "alpha-800x600.png"})
+    public String image;
+
+    @Param({"SPEED", "BALANCED", "QUALITY"})
+    public ResampleQuality quality;
+
+    @Param({"640", "150"})
+    public int targetWidth;
+
+    private final ThumbnailResampler resampler = new ThumbnailResampler(new ImageProcessingProperties());
+    private BufferedImage source;
+    private int targetHeight;
+
+    @Setup
+    public void setUp() {
+        source = Corpus.decode(image);
+        int width = Math.min(targetWidth, source.getWidth());
+        targetHeight = Math.max(1, (int) ((double) width / source.getWidth() * source.getHeight()));
+        targetWidth = width;
+    }
+
+    @Benchmark
+    public BufferedImage resize() {
+        return resampler.resize(source, targetWidth, targetHeight, quality);
+    }
+}
@@ -0,0 +1,13 @@
+package com.api.imageIngestion.cache;
+
+/**
+ * Point-in-time counters of a byte-budgeted cache
+ */
+public record CacheStats(long hits, long misses, long evictions, long rejections,
+                         long entries, long usedBytes, long maxBytes) {
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,114 @@
+package com.api.imageIngestion.cache;
+
+import com.api.imageIngestion.config.ThumbnailCacheProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process cache of encoded thumbnails in front of the thumbnail store. Bytes live off-heap in direct buffers so a
+ * large cache adds no GC scanning work, and the total size is held under a byte budget.
+ * <p>
+ * Eviction walks entries in LRU order, but a new entry is only admitted if the frequency sketch rates it higher than
+ * every victim it would displace (TinyLFU admission). A one-off scan over many cold thumbnails therefore cannot flush
+ * the hot working set.
+ */
+@Component
+public class ThumbnailCache {
+
+    private static final int AVERAGE_THUMBNAIL_BYTES = 8 * 1024;
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final FrequencySketch sketch;
+    private final LinkedHashMap<ThumbnailKey, ByteBuffer> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long usedBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public ThumbnailCache(ThumbnailCacheProperties properties) {
+        this.enabled = properties.isEnabled() && properties.getMaxBytes() > 0;
+        this.maxBytes = Math.max(0, properties.getMaxBytes());
+        this.sketch = new FrequencySketch((int) Math.min(1 << 24, Math.max(1, maxBytes / AVERAGE_THUMBNAIL_BYTES)));
+    }
+
+    /**
+     * Copy of the cached thumbnail, recording the access in the frequency sketch either way
+     */
+    public Optional<byte[]> get(ThumbnailKey key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        ByteBuffer buffer;
+        synchronized (this) {
+            sketch.increment(key);
+            buffer = entries.get(key);
+        }
+        if (buffer == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return Optional.of(bytes);
+    }
+
+    /**
+     * Offer a thumbnail to the cache. It is dropped if it cannot fit or is less popular than the entries it would evict.
+     */
+    public void put(ThumbnailKey key, byte[] bytes) {
+        if (!enabled) {
+            return;
+        }
+        if (bytes.length > maxBytes) {
+            rejections.increment();
+            return;
+        }
+        synchronized (this) {
+            if (entries.containsKey(key)) {
+                return;
+            }
+
+            long needed = usedBytes + bytes.length - maxBytes;
+            if (needed > 0) {
+                int candidateFrequency = sketch.frequency(key);
+                List<ThumbnailKey> victims = new ArrayList<>();
+                long freed = 0;
+                Iterator<Map.Entry<ThumbnailKey, ByteBuffer>> lru = entries.entrySet().iterator();
+                while (freed < needed && lru.hasNext()) {
+                    Map.Entry<ThumbnailKey, ByteBuffer> victim = lru.next();
+                    if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                        rejections.increment();
+                        return;
+                    }
+                    victims.add(victim.getKey());
+                    freed += victim.getValue().capacity();
+                }
+                for (ThumbnailKey victim : victims) {
+                    usedBytes -= entries.remove(victim).capacity();
+                }
+                evictions.add(victims.size());
+            }
+
+            // off-heap memory is only allocated once the entry has been admitted
+            entries.put(key, ByteBuffer.allocateDirect(bytes.length).put(bytes).flip().asReadOnlyBuffer());
+            usedBytes += bytes.length;
+        }
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), rejections.sum(),
+                entries.size(), usedBytes, maxBytes);
+    }
+}
@@ -0,0 +1,8 @@
+package com.api.imageIngestion.cache;
+
+/**
+ * Cache key of an encoded thumbnail: the content hash of its bytes and the size profile it was rendered for. Images
+ * sharing content share one stored thumbnail, so they also share one cache entry and one frequency count.
+ */
+public record ThumbnailKey(String contentHash, String profile) {
+}
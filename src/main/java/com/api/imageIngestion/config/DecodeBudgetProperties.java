@@ -0,0 +1,23 @@
+package com.api.imageIngestion.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "decode-budget")
+public class DecodeBudgetProperties {
+
+    //estimated bytes of decoded rasters allowed in flight at once; 0 uses half of the maximum heap
+    private long maxBytes = 0;
+
+    //largest image accepted, in pixels; anything bigger is rejected from its header before decoding
+    private long maxImagePixels = 50_000_000L;
+
+    //how long an image waits for budget before the request is rejected with 503
+    private Duration maxWait = Duration.ofSeconds(2);
+
+    //Retry-After returned with that 503
+    private Duration retryAfter = Duration.ofSeconds(5);
+}
@@ -0,0 +1,25 @@
+package com.api.imageIngestion.config;
+
+import com.api.imageIngestion.processing.ImageProcessingScheduler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.imageio.ImageIO;
+
+@Configuration
+public class ImageProcessingConfig {
+
+    public ImageProcessingConfig() {
+        // uploads are decoded from files and encoded into memory, so ImageIO's temp-file stream cache only adds disk round trips
+        ImageIO.setUseCache(false);
+    }
+
+    /**
+     * Scheduler for per-image decode/thumbnail work and ingestion job items, sharing the cores fairly between upload
+     * requests and jobs. Request threads only submit and wait, so CPU-bound work never runs on them.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ImageProcessingScheduler imageProcessingScheduler(ImageProcessingProperties properties) {
+        return new ImageProcessingScheduler(properties.getParallelism(), properties.getQueueCapacity());
+    }
+}
@@ -0,0 +1,44 @@
+package com.api.imageIngestion.config;
+
+import com.api.imageIngestion.processing.ResampleQuality;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "image-processing")
+public class ImageProcessingProperties {
+
+    //where uploads are moved while their set is processed; defaults to a folder under java.io.tmpdir
+    private String uploadDirectory;
+
+    //downscaling tier used for generated thumbnails
+    private ResampleQuality resampleQuality = ResampleQuality.BALANCED;
+
+    //worker threads of the image processing scheduler, which decode and thumbnail images in parallel
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    //pending per-image tasks one upload request or ingestion job may queue before its submitter waits
+    private int queueCapacity = 256;
+
+    //thumbnail sizes generated at upload time
+    private List<ThumbnailProfile> thumbnailProfiles = new ArrayList<>(List.of(
+            new ThumbnailProfile("64", 64),
+            new ThumbnailProfile("150", 150),
+            new ThumbnailProfile("320", 320),
+            new ThumbnailProfile("640", 640)));
+
+    //profile returned inline in image set responses and by the thumbnail endpoint when none is requested
+    private String defaultThumbnailProfile = "150";
+
+    //images of an archive import saved per flush, matching the JDBC batch size; one more chunk renders meanwhile
+    private int archiveChunkSize = 50;
+
+    //image entries accepted in one archive
+    private int archiveMaxEntries = 10_000;
+
+    //uncompressed size accepted for one archive entry
+    private long archiveMaxEntryBytes = 64L * 1024 * 1024;
+}
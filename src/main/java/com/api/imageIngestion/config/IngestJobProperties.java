@@ -0,0 +1,35 @@
+package com.api.imageIngestion.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ingest-job")
+public class IngestJobProperties {
+
+    //where uploads of asynchronous jobs wait for a worker; must be shared storage when several instances run
+    private String spoolDirectory = "data/spool";
+
+    //identifies this instance as lease owner; a random id is generated when unset
+    private String instanceId;
+
+    //whether this instance leases and processes items
+    private boolean workerEnabled = true;
+
+    //items processed concurrently by this instance
+    private int maxConcurrentItems = Runtime.getRuntime().availableProcessors();
+
+    //how often idle capacity is offered to the job table
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    //how often held leases are extended; must be well below leaseDuration
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    //how long a lease is valid without a heartbeat; a crashed instance's items are retried after this
+    private Duration leaseDuration = Duration.ofSeconds(60);
+
+    //attempts per item before it is marked failed; images that cannot be decoded fail immediately
+    private int maxAttempts = 3;
+}
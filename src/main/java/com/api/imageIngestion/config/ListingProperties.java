@@ -0,0 +1,15 @@
+package com.api.imageIngestion.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "listing")
+public class ListingProperties {
+
+    //page size when the request does not give one
+    private int defaultPageSize = 50;
+
+    //larger requested page sizes are capped to this
+    private int maxPageSize = 200;
+}
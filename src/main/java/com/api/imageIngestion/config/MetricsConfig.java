@@ -0,0 +1,100 @@
+package com.api.imageIngestion.config;
+
+import com.api.imageIngestion.cache.CacheStats;
+import com.api.imageIngestion.cache.ThumbnailCache;
+import com.api.imageIngestion.metrics.IngestionMetrics;
+import com.api.imageIngestion.processing.DecodeBudget;
+import com.api.imageIngestion.processing.ImageProcessingScheduler;
+import com.api.imageIngestion.service.ImageSetResponseCache;
+import com.api.imageIngestion.service.RenditionService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the counters that components already keep for /stats as meters, so they are scraped together with the
+ * ingestion stage timers
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Reserved and maximum bytes of the decode budget, images waiting for it, and images it turned away by cause
+     */
+    @Bean
+    public MeterBinder decodeBudgetMetrics(DecodeBudget budget) {
+        return registry -> {
+            Gauge.builder("image.decode.budget.reserved", budget, DecodeBudget::getReservedBytes)
+                    .baseUnit("bytes").register(registry);
+            Gauge.builder("image.decode.budget.max", budget, DecodeBudget::getMaxBytes)
+                    .baseUnit("bytes").register(registry);
+            Gauge.builder("image.decode.budget.waiting", budget, DecodeBudget::getWaiting)
+                    .register(registry);
+            rejections(registry, budget, "budget_exhausted", DecodeBudget::getRejections);
+            rejections(registry, budget, "pixel_limit", DecodeBudget::getPixelLimitRejections);
+            rejections(registry, budget, "memory_limit", DecodeBudget::getMemoryLimitRejections);
+        };
+    }
+
+    /**
+     * Hit, miss and eviction counters and memory usage of the thumbnail, response and rendition caches
+     */
+    @Bean
+    public MeterBinder cacheMetrics(ThumbnailCache thumbnailCache, ImageSetResponseCache responseCache,
+                                    RenditionService renditionService) {
+        return registry -> {
+            cache(registry, "thumbnail", thumbnailCache, ThumbnailCache::stats);
+            cache(registry, "response", responseCache, ImageSetResponseCache::stats);
+            cache(registry, "rendition", renditionService, RenditionService::stats);
+        };
+    }
+
+    /**
+     * Busy workers, queue depth, flows waiting for a turn and completed tasks of the image processing scheduler
+     */
+    @Bean
+    public MeterBinder imageProcessingSchedulerMetrics(ImageProcessingScheduler scheduler) {
+        return registry -> {
+            Gauge.builder("image.processing.workers", scheduler, ImageProcessingScheduler::getParallelism)
+                    .register(registry);
+            Gauge.builder("image.processing.active", scheduler, ImageProcessingScheduler::getActiveCount)
+                    .register(registry);
+            Gauge.builder("image.processing.queue.depth", scheduler, ImageProcessingScheduler::getQueueDepth)
+                    .description("Image tasks waiting for a worker")
+                    .register(registry);
+            Gauge.builder("image.processing.queue.flows", scheduler, ImageProcessingScheduler::getQueuedFlows)
+                    .description("Upload requests and ingestion jobs with image tasks waiting for a worker")
+                    .register(registry);
+            FunctionCounter.builder("image.processing.completed", scheduler, ImageProcessingScheduler::getCompletedCount)
+                    .register(registry);
+        };
+    }
+
+    private static void rejections(MeterRegistry registry, DecodeBudget budget, String cause,
+                                   ToDoubleFunction<DecodeBudget> count) {
+        FunctionCounter.builder(IngestionMetrics.REJECTIONS, budget, count)
+                .description("Uploads rejected by the ingestion pipeline, by cause")
+                .tag("cause", cause)
+                .register(registry);
+    }
+
+    //meters hold their source weakly, so the cache itself is registered rather than a lambda over it
+    private static <T> void cache(MeterRegistry registry, String name, T cache, Function<T, CacheStats> stats) {
+        FunctionCounter.builder("image.cache.requests", cache, c -> stats.apply(c).hits())
+                .tags("cache", name, "result", "hit").register(registry);
+        FunctionCounter.builder("image.cache.requests", cache, c -> stats.apply(c).misses())
+                .tags("cache", name, "result", "miss").register(registry);
+        FunctionCounter.builder("image.cache.evictions", cache, c -> stats.apply(c).evictions())
+                .tag("cache", name).register(registry);
+        Gauge.builder("image.cache.size", cache, c -> stats.apply(c).usedBytes())
+                .tag("cache", name).baseUnit("bytes").register(registry);
+        Gauge.builder("image.cache.entries", cache, c -> stats.apply(c).entries())
+                .tag("cache", name).register(registry);
+    }
+}
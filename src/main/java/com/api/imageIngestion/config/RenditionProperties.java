@@ -0,0 +1,18 @@
+package com.api.imageIngestion.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "rendition")
+public class RenditionProperties {
+
+    //requested widths and heights are rounded up to the next bucket so the set of cacheable renditions stays small
+    private List<Integer> buckets = new ArrayList<>(List.of(32, 48, 64, 96, 128, 160, 200, 256, 320, 400, 480, 640));
+
+    //total bytes of rendered renditions kept in memory
+    private long cacheMaxBytes = 32L * 1024 * 1024;
+}
@@ -0,0 +1,17 @@
+package com.api.imageIngestion.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = true;
+
+    //total bytes of serialized responses kept in memory
+    private long maxBytes = 64L * 1024 * 1024;
+
+    //responses larger than this are served but never cached
+    private long maxEntryBytes = 8L * 1024 * 1024;
+}
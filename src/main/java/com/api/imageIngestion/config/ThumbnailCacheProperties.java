@@ -0,0 +1,14 @@
+package com.api.imageIngestion.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "thumbnail-cache")
+public class ThumbnailCacheProperties {
+
+    private boolean enabled = true;
+
+    //total bytes of thumbnail data held off-heap; -XX:MaxDirectMemorySize must leave room for it
+    private long maxBytes = 64L * 1024 * 1024;
+}
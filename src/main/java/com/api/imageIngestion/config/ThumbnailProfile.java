@@ -0,0 +1,39 @@
+package com.api.imageIngestion.config;
+
+import com.api.imageIngestion.processing.JpegSettings;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A thumbnail size generated for every uploaded image
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ThumbnailProfile {
+
+    //name clients use to request this size
+    private String name;
+
+    //thumbnails are scaled to fit this width; images already narrower are not upscaled
+    private int maxWidth;
+
+    //JPEG compression quality between 0 and 1
+    private float quality = JpegSettings.DEFAULT.quality();
+
+    //progressive scans instead of baseline; mostly worthwhile for the larger sizes
+    private boolean progressive = JpegSettings.DEFAULT.progressive();
+
+    //image-specific Huffman tables: a few percent smaller at a small encode cost
+    private boolean optimizeHuffman = JpegSettings.DEFAULT.optimizeHuffman();
+
+    public ThumbnailProfile(String name, int maxWidth) {
+        this.name = name;
+        this.maxWidth = maxWidth;
+    }
+
+    public JpegSettings toJpegSettings() {
+        return new JpegSettings(quality, progressive, optimizeHuffman);
+    }
+}
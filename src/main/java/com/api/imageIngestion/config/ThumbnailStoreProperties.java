@@ -0,0 +1,25 @@
+package com.api.imageIngestion.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "thumbnail-store")
+public class ThumbnailStoreProperties {
+
+    //directory holding the append-only segment files; must be shared storage when several instances run
+    private String directory = "data/thumbnails";
+
+    //subdirectory this instance appends its segments to; instances sharing the directory need distinct namespaces
+    private String namespace = "default";
+
+    //a new segment is started once the active one would grow past this many bytes
+    private long segmentSize = 256L * 1024 * 1024;
+
+    //force every append to disk before returning
+    private boolean fsync = false;
+
+    //delete the segments of this namespace, and of namespaces no running instance holds, on startup; for databases
+    //recreated on every start, whose rows can no longer point at segments of an earlier run
+    private boolean clearOnStartup = false;
+}
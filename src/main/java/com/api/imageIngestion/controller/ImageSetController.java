@@ -1,25 +1,53 @@
 package com.api.imageIngestion.controller;
 
+import com.api.imageIngestion.dto.ImageMetadataPageDTO;
+import com.api.imageIngestion.dto.ImagePageDTO;
 import com.api.imageIngestion.dto.ImageSetCreateRequestDTO;
-import com.api.imageIngestion.dto.ImageSetMetadataResponseDTO;
+import com.api.imageIngestion.dto.ImageSetListItemDTO;
+import com.api.imageIngestion.dto.ImageSetPageDTO;
 import com.api.imageIngestion.dto.ImageSetResponseDTO;
+import com.api.imageIngestion.processing.FitMode;
 import com.api.imageIngestion.service.ImageService;
+import com.api.imageIngestion.service.ImageSetResponseCache;
+import com.api.imageIngestion.service.ImageSetResponseCache.View;
+import com.api.imageIngestion.service.ImageSetStreamWriter;
+import com.api.imageIngestion.service.ImageSetVersion;
+import com.api.imageIngestion.service.RenditionService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
 
 @RestController
 @RequestMapping("/image-sets")
 public class ImageSetController {
 
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+    //set views change with their images, so clients may keep them but must revalidate before reuse
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+
     private final ImageService imageService;
+    private final ImageSetResponseCache responseCache;
+    private final RenditionService renditionService;
+    private final ImageSetStreamWriter streamWriter;
 
-    public ImageSetController(ImageService imageService) {
+    public ImageSetController(ImageService imageService, ImageSetResponseCache responseCache, RenditionService renditionService,
+                              ImageSetStreamWriter streamWriter) {
         this.imageService = imageService;
+        this.responseCache = responseCache;
+        this.renditionService = renditionService;
+        this.streamWriter = streamWriter;
     }
 
     /**
@@ -30,44 +58,155 @@ public class ImageSetController {
             @RequestPart("metadata") ImageSetCreateRequestDTO metadata,
             @RequestPart(value = "files") List<MultipartFile> files
     ) throws Exception {
-        // Validate files are provided and not empty
-        if (files == null || files.isEmpty()) {
-            throw new IllegalArgumentException("At least one image file must be provided");
-        }
-        
-        if (metadata.getImages() == null || metadata.getImages().isEmpty()) {
-            throw new IllegalArgumentException("At least one image entry must be provided");
-        }
-        
-        if (files.size() != metadata.getImages().size()) {
-            throw new IllegalArgumentException("Number of files must match number of image metadata entries");
-        }
-        
-        for (int i = 0; i < files.size(); i++) {
-            if (files.get(i).isEmpty()) {
-                throw new IllegalArgumentException("File at index " + i + " is empty");
-            }
-        }
-        
+        UploadValidation.validate(metadata, files);
+
         ImageSetResponseDTO dto = imageService.createImageSet(metadata, files);
         return ResponseEntity.status(HttpStatus.CREATED).body(dto);
     }
 
     /**
-     * Endpoint to retrieve an ImageSet by ID, returning 200 OK with the ImageSetResponseDTO if found, or 404 Not Found if the ID does not exist.
+     * Endpoint to create an ImageSet from a ZIP archive sent as the request body, one image per file entry, named after the entry's file name. Entries are decoded and saved in chunks while the archive is still arriving, so it is never held as a whole. Returns 201 Created with the set's id, name and image count, or 400 Bad Request for a malformed archive or any unreadable or oversized entry.
+     */
+    @PostMapping(value = "/archive", consumes = {"application/zip", "application/x-zip-compressed"})
+    public ResponseEntity<ImageSetListItemDTO> importArchive(@RequestParam String name, InputStream archive) throws IOException {
+        ImageSetListItemDTO dto = imageService.importArchive(name, archive);
+        return ResponseEntity.created(URI.create("/image-sets/" + dto.getImageSetId())).body(dto);
+    }
+
+    /**
+     * Endpoint to list ImageSets newest first, one page at a time, with set-level fields and image counts only. Pass the nextCursor of a page as cursor to get the following one; namePrefix restricts the listing to names starting with it, and limit is capped to the configured maximum page size.
+     */
+    @GetMapping
+    public ResponseEntity<ImageSetPageDTO> listImageSets(@RequestParam(required = false) String namePrefix,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(imageService.listImageSets(namePrefix, cursor, limit));
+    }
+
+    /**
+     * Endpoint to retrieve an ImageSet by ID, returning 200 OK with the serialized ImageSetResponseDTO if found, or 404 Not Found if the ID does not exist. The JSON is served from the response cache when possible. The response carries the set's version as ETag and its last change as Last-Modified, and a matching If-None-Match or If-Modified-Since is answered with 304 Not Modified from a primary key lookup alone.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ImageSetResponseDTO> getImageSet(@PathVariable Long id) {
-        ImageSetResponseDTO dto = imageService.getImageSet(id);
-        return ResponseEntity.ok(dto);
+    public ResponseEntity<byte[]> getImageSet(@PathVariable Long id, WebRequest request) {
+        return versioned(id, View.FULL, request, version -> responseCache.getImageSetJson(id, version));
+    }
+
+    /**
+     * Endpoint to retrieve an ImageSet by ID like the one above, with stream=true: the JSON is written while the images are read instead of being built in memory first, for sets too large to serve from the response cache. Returns 404 Not Found if the ID does not exist.
+     */
+    @GetMapping(value = "/{id}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamImageSet(@PathVariable Long id, WebRequest request) {
+        return versioned(id, View.FULL, request, version -> out -> streamWriter.write(id, View.FULL, out));
     }
 
     /**
-     * Endpoint to retrieve ImageSet metadata (without thumbnail bytes) by ID for lightweight queries. Returns 200 OK with ImageSetMetadataResponseDTO if found, or 404 Not Found if the ID does not exist.
+     * Endpoint to retrieve ImageSet metadata (without thumbnail bytes) by ID for lightweight queries. Returns 200 OK with the serialized ImageSetMetadataResponseDTO if found, or 404 Not Found if the ID does not exist. Conditional requests are handled like for the ImageSet endpoint.
      */
     @GetMapping("/{id}/metadata")
-    public ResponseEntity<ImageSetMetadataResponseDTO> getImageSetMetadata(@PathVariable Long id) {
-        ImageSetMetadataResponseDTO dto = imageService.getImageSetMetadata(id);
-        return ResponseEntity.ok(dto);
+    public ResponseEntity<byte[]> getImageSetMetadata(@PathVariable Long id, WebRequest request) {
+        return versioned(id, View.METADATA, request, version -> responseCache.getImageSetMetadataJson(id, version));
+    }
+
+    /**
+     * Endpoint to retrieve ImageSet metadata by ID with stream=true, written while the images are read like the streaming ImageSet endpoint.
+     */
+    @GetMapping(value = "/{id}/metadata", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamImageSetMetadata(@PathVariable Long id, WebRequest request) {
+        return versioned(id, View.METADATA, request, version -> out -> streamWriter.write(id, View.METADATA, out));
+    }
+
+    /**
+     * Endpoint to page through the images of an ImageSet in id order, with their default-profile thumbnails. Pass the nextAfter of a page as after to get the following one; limit is capped like the set listing. Returns 404 Not Found if the ID does not exist.
+     */
+    @GetMapping("/{id}/images")
+    public ResponseEntity<ImagePageDTO> listImages(@PathVariable Long id,
+                                                   @RequestParam(required = false) Long after,
+                                                   @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(imageService.listImages(id, after, limit));
+    }
+
+    /**
+     * Endpoint to page through the image metadata (without thumbnail bytes) of an ImageSet, like the images endpoint.
+     */
+    @GetMapping("/{id}/images/metadata")
+    public ResponseEntity<ImageMetadataPageDTO> listImageMetadata(@PathVariable Long id,
+                                                                  @RequestParam(required = false) Long after,
+                                                                  @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(imageService.listImageMetadata(id, after, limit));
+    }
+
+    /**
+     * Endpoint to retrieve the raw JPEG thumbnail of a single image for a size profile (listed in thumbnailSizes of the set responses; the default profile when omitted). Thumbnails never change once written, so the response carries a content-hash ETag and an immutable Cache-Control header, and a matching If-None-Match is answered with 304 Not Modified without reading the thumbnail bytes.
+     */
+    @GetMapping("/{id}/images/{imgId}/thumbnail")
+    public ResponseEntity<byte[]> getThumbnail(@PathVariable Long id, @PathVariable Long imgId,
+                                               @RequestParam(required = false) String profile, WebRequest request) {
+        String etag = "\"" + imageService.getThumbnailETag(id, imgId, profile) + "\"";
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(IMMUTABLE)
+                    .build();
+        }
+
+        byte[] thumbnail = imageService.getThumbnail(id, imgId, profile);
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .contentLength(thumbnail.length)
+                .eTag(etag)
+                .cacheControl(IMMUTABLE)
+                .body(thumbnail);
+    }
+
+    /**
+     * Endpoint to retrieve a JPEG rendition of a single image fitted into a w x h box (either side may be omitted), rendered on first request from the largest stored thumbnail. Sizes are rounded up to the configured buckets and the image is never upscaled; fit=COVER fills the box and crops the overflow, the default CONTAIN fits inside it. Like thumbnails, renditions are immutable and support If-None-Match.
+     */
+    @GetMapping("/{id}/images/{imgId}/rendition")
+    public ResponseEntity<byte[]> getRendition(@PathVariable Long id, @PathVariable Long imgId,
+                                               @RequestParam(required = false) Integer w,
+                                               @RequestParam(required = false) Integer h,
+                                               @RequestParam(required = false) FitMode fit,
+                                               WebRequest request) {
+        RenditionService.Rendition rendition = renditionService.resolve(id, imgId, w, h, fit);
+        String etag = "\"" + rendition.etag() + "\"";
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(IMMUTABLE)
+                    .build();
+        }
+
+        byte[] bytes = renditionService.render(rendition);
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .contentLength(bytes.length)
+                .eTag(etag)
+                .cacheControl(IMMUTABLE)
+                .body(bytes);
+    }
+
+    /**
+     * Answer a view of a set with 304 Not Modified when the request's validators match the set's current version, or
+     * with 200 OK and the body built for that version. The version is read before the body, so a concurrent write can
+     * only make the body newer than its ETag (costing the client one extra download), never older.
+     */
+    private <T> ResponseEntity<T> versioned(Long id, View view, WebRequest request, LongFunction<T> body) {
+        ImageSetVersion version = imageService.getImageSetVersion(id);
+        String etag = version.etag(view);
+        long lastModified = version.modifiedAt().toEpochMilli();
+        if (request.checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .lastModified(lastModified)
+                    .cacheControl(REVALIDATE)
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .lastModified(lastModified)
+                .cacheControl(REVALIDATE)
+                .body(body.apply(version.version()));
     }
 }
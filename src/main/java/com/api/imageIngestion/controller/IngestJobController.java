@@ -0,0 +1,47 @@
+package com.api.imageIngestion.controller;
+
+import com.api.imageIngestion.dto.ImageSetCreateRequestDTO;
+import com.api.imageIngestion.dto.IngestJobResponseDTO;
+import com.api.imageIngestion.service.IngestJobService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.net.URI;
+import java.util.List;
+
+@RestController
+@RequestMapping("/ingest-jobs")
+public class IngestJobController {
+
+    private final IngestJobService ingestJobService;
+
+    public IngestJobController(IngestJobService ingestJobService) {
+        this.ingestJobService = ingestJobService;
+    }
+
+    /**
+     * Endpoint to create an ImageSet asynchronously, accepting the same multipart/form-data as POST /image-sets. Headers are validated and the uploads spooled before returning 202 Accepted with the job and a Location to poll; decoding and thumbnailing happen on whichever instance leases each image.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<IngestJobResponseDTO> submitJob(
+            @RequestPart("metadata") ImageSetCreateRequestDTO metadata,
+            @RequestPart(value = "files") List<MultipartFile> files
+    ) throws Exception {
+        UploadValidation.validate(metadata, files);
+
+        IngestJobResponseDTO dto = ingestJobService.submitJob(metadata, files);
+        return ResponseEntity.accepted()
+                .location(URI.create("/ingest-jobs/" + dto.getJobId()))
+                .body(dto);
+    }
+
+    /**
+     * Endpoint to retrieve the status of an ingestion job with per-image progress, or 404 Not Found if the ID does not exist
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<IngestJobResponseDTO> getJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(ingestJobService.getJob(jobId));
+    }
+}
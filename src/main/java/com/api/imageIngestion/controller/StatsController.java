@@ -0,0 +1,77 @@
+package com.api.imageIngestion.controller;
+
+import com.api.imageIngestion.cache.CacheStats;
+import com.api.imageIngestion.cache.ThumbnailCache;
+import com.api.imageIngestion.processing.EncodeStats;
+import com.api.imageIngestion.processing.ImageProcessingScheduler;
+import com.api.imageIngestion.processing.SchedulerStats;
+import com.api.imageIngestion.processing.ThumbnailEncoder;
+import com.api.imageIngestion.service.ImageSetResponseCache;
+import com.api.imageIngestion.service.RenditionService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+
+    private final ThumbnailCache thumbnailCache;
+    private final ImageSetResponseCache responseCache;
+    private final RenditionService renditionService;
+    private final ThumbnailEncoder thumbnailEncoder;
+    private final ImageProcessingScheduler scheduler;
+
+    public StatsController(ThumbnailCache thumbnailCache, ImageSetResponseCache responseCache,
+                           RenditionService renditionService, ThumbnailEncoder thumbnailEncoder,
+                           ImageProcessingScheduler scheduler) {
+        this.thumbnailCache = thumbnailCache;
+        this.responseCache = responseCache;
+        this.renditionService = renditionService;
+        this.thumbnailEncoder = thumbnailEncoder;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Endpoint to report hit/miss/eviction counters and memory usage of the thumbnail cache
+     */
+    @GetMapping("/thumbnail-cache")
+    public ResponseEntity<CacheStats> thumbnailCache() {
+        return ResponseEntity.ok(thumbnailCache.stats());
+    }
+
+    /**
+     * Endpoint to report hit/miss/eviction counters and memory usage of the serialized image set response cache
+     */
+    @GetMapping("/response-cache")
+    public ResponseEntity<CacheStats> responseCache() {
+        return ResponseEntity.ok(responseCache.stats());
+    }
+
+    /**
+     * Endpoint to report hit/miss/eviction counters and memory usage of the on-demand rendition cache
+     */
+    @GetMapping("/rendition-cache")
+    public ResponseEntity<CacheStats> renditionCache() {
+        return ResponseEntity.ok(renditionService.stats());
+    }
+
+    /**
+     * Endpoint to report encode count, total encode time and total output bytes per thumbnail profile, with the JPEG settings in use
+     */
+    @GetMapping("/thumbnail-encoder")
+    public ResponseEntity<List<EncodeStats>> thumbnailEncoder() {
+        return ResponseEntity.ok(thumbnailEncoder.stats());
+    }
+
+    /**
+     * Endpoint to report worker count, running and queued image tasks, requests and jobs waiting for a turn, and completed tasks of the image processing scheduler
+     */
+    @GetMapping("/image-processing")
+    public ResponseEntity<SchedulerStats> imageProcessing() {
+        return ResponseEntity.ok(scheduler.stats());
+    }
+}
@@ -0,0 +1,36 @@
+package com.api.imageIngestion.controller;
+
+import com.api.imageIngestion.dto.ImageSetCreateRequestDTO;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+
+/**
+ * Request checks shared by the synchronous and asynchronous image set upload endpoints
+ */
+final class UploadValidation {
+
+    private UploadValidation() {
+    }
+
+    static void validate(ImageSetCreateRequestDTO metadata, List<MultipartFile> files) {
+        // Validate files are provided and not empty
+        if (files == null || files.isEmpty()) {
+            throw new IllegalArgumentException("At least one image file must be provided");
+        }
+
+        if (metadata.getImages() == null || metadata.getImages().isEmpty()) {
+            throw new IllegalArgumentException("At least one image entry must be provided");
+        }
+
+        if (files.size() != metadata.getImages().size()) {
+            throw new IllegalArgumentException("Number of files must match number of image metadata entries");
+        }
+
+        for (int i = 0; i < files.size(); i++) {
+            if (files.get(i).isEmpty()) {
+                throw new IllegalArgumentException("File at index " + i + " is empty");
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -20,4 +21,6 @@ public class ImageMetadataDTO {
     private LocalDateTime timestamp;
 
     private DimensionsDTO dimensions;
+
+    private List<ThumbnailSizeDTO> thumbnailSizes;
 }
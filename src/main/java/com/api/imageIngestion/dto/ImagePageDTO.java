@@ -0,0 +1,22 @@
+package com.api.imageIngestion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImagePageDTO {
+
+    private Long imageSetId;
+
+    private List<ImageResponseDTO> images;
+
+    //imgId to pass as after for the next page, null on the last page
+    private Long nextAfter;
+}
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -22,4 +23,6 @@ public class ImageResponseDTO {
     private LocalDateTime timestamp;
 
     private DimensionsDTO dimensions;
+
+    private List<ThumbnailSizeDTO> thumbnailSizes;
 }
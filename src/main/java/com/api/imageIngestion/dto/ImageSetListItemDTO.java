@@ -0,0 +1,23 @@
+package com.api.imageIngestion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImageSetListItemDTO {
+
+    private Long imageSetId;
+
+    private String imageSetName;
+
+    private LocalDateTime createdAt;
+
+    private Long imageCount;
+}
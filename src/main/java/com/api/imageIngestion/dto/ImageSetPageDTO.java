@@ -0,0 +1,20 @@
+package com.api.imageIngestion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImageSetPageDTO {
+
+    private List<ImageSetListItemDTO> imageSets;
+
+    //opaque cursor of the next page, null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,24 @@
+package com.api.imageIngestion.dto;
+
+import com.api.imageIngestion.entity.IngestItemStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngestJobImageDTO {
+
+    private Integer index;
+
+    private Long imgId;
+
+    private IngestItemStatus status;
+
+    private Integer attempts;
+
+    private String error;
+}
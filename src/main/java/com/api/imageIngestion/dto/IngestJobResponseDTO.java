@@ -0,0 +1,32 @@
+package com.api.imageIngestion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngestJobResponseDTO {
+
+    private Long jobId;
+
+    private Long imageSetId;
+
+    private IngestJobStatus status;
+
+    private LocalDateTime createdAt;
+
+    private Integer totalImages;
+
+    private Integer completedImages;
+
+    private Integer failedImages;
+
+    private List<IngestJobImageDTO> images;
+}
@@ -0,0 +1,11 @@
+package com.api.imageIngestion.dto;
+
+/**
+ * Overall status of an ingestion job, derived from the status of its images
+ */
+public enum IngestJobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
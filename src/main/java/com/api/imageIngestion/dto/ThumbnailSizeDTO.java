@@ -0,0 +1,19 @@
+package com.api.imageIngestion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ThumbnailSizeDTO {
+
+    private String profile;
+
+    private Integer width;
+
+    private Integer height;
+}
@@ -0,0 +1,36 @@
+package com.api.imageIngestion.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.Embedded;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One stored size profile of an image content, shared by every image with that content
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContentThumbnail {
+
+    @Column(name = "profile", nullable = false, length = 32)
+    private String profile;
+
+    @Column(name = "width", nullable = false)
+    private Integer width;
+
+    @Column(name = "height", nullable = false)
+    private Integer height;
+
+    @Embedded
+    private ThumbnailPointer pointer;
+
+    //SHA-256 of the thumbnail bytes
+    @Column(name = "thumbnail_hash", length = 64, nullable = false)
+    private String thumbnailHash;
+}
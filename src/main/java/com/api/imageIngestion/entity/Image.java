@@ -4,29 +4,48 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "images")
+@Table(name = "images", indexes = {
+        @Index(name = "idx_images_set_img", columnList = "set_id, img_id"),
+        @Index(name = "idx_images_content_hash", columnList = "content_hash")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Image {
 
-    //Primary Key
+    //Primary Key; drawn from a pooled sequence (one round trip per 50 ids) so inserts can be batched, which IDENTITY rules out
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "images_seq")
+    @SequenceGenerator(name = "images_seq", sequenceName = "images_seq", allocationSize = 50)
     @Column(name = "img_id")
     private Long imgId;
 
     @Column(name = "img_name", nullable = false)
     private String imgName;
 
-    //generated thumbnail
-    @Column(name = "thumbnail", columnDefinition = "LONGBLOB")
+    //stored thumbnails, one per size profile; loaded only when accessed, for all images of the query at once
+    @OneToMany(mappedBy = "image", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @OrderBy("width ASC, profile ASC")
+    @Fetch(FetchMode.SUBSELECT)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Builder.Default
+    private List<ImageThumbnail> thumbnails = new ArrayList<>();
+
+    //default-profile thumbnail bytes, resolved from the thumbnail store when needed
+    @Transient
     private byte[] thumbnail;
 
     @Column(name = "timestamp", nullable = false, updatable = false)
@@ -41,6 +60,10 @@ public class Image {
     @Column(name = "aspect_ratio")
     private Double aspectRatio;
 
+    //SHA-256 of the uploaded file, keying the shared content entry; null until the upload has been processed
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "set_id", nullable = false)
     private ImageSet imageSet;
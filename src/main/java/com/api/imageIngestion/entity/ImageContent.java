@@ -0,0 +1,58 @@
+package com.api.imageIngestion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Content index entry: an uploaded image identified by the SHA-256 of its bytes, with its dimensions and the
+ * thumbnails rendered from it. Uploads with a known hash reuse these instead of being decoded again, and their
+ * thumbnail rows point at the same stored bytes.
+ */
+@Entity
+@Table(name = "image_contents")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImageContent {
+
+    //SHA-256 of the uploaded file
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "format", nullable = false, length = 32)
+    private String format;
+
+    @Column(name = "width", nullable = false)
+    private Integer width;
+
+    @Column(name = "height", nullable = false)
+    private Integer height;
+
+    //number of images sharing the stored thumbnails, bookkeeping only: images are never removed, so nothing reads or decrements it yet.
+    //An entry registered by a request that then failed stays at 0
+    @Column(name = "ref_count", nullable = false)
+    private Long refCount;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "image_content_thumbnails", joinColumns = @JoinColumn(name = "content_hash"))
+    @OrderBy("width DESC, profile ASC")
+    @Builder.Default
+    private List<ContentThumbnail> thumbnails = new ArrayList<>();
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -6,11 +6,15 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "image_sets")
+@Table(name = "image_sets", indexes = {
+        @Index(name = "idx_image_sets_created", columnList = "created_at DESC, set_id DESC"),
+        @Index(name = "idx_image_sets_name", columnList = "set_name, created_at DESC, set_id DESC")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -18,7 +22,8 @@ import java.util.List;
 public class ImageSet {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "image_sets_seq")
+    @SequenceGenerator(name = "image_sets_seq", sequenceName = "image_sets_seq", allocationSize = 50)
     @Column(name = "set_id")
     private Long setId;
 
@@ -28,11 +33,23 @@ public class ImageSet {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    //bumped on every change to the set or its images, for ETags; not a JPA @Version, and only ever written by
+    //ImageSetRepository.touch so that flushing a stale ImageSet instance cannot roll it back
+    @Column(name = "version", nullable = false, updatable = false)
+    private Long version;
+
+    //time of the last change to the set or its images, for Last-Modified; an Instant so it converts to an HTTP date unambiguously
+    @Column(name = "modified_at", nullable = false, updatable = false)
+    private Instant modifiedAt;
+
     @OneToMany(mappedBy = "imageSet", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @OrderBy("imgId ASC")
     private List<Image> images;
 
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        version = 0L;
+        modifiedAt = Instant.now();
     }
 }
@@ -0,0 +1,51 @@
+package com.api.imageIngestion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Stored thumbnail of an image for one size profile: where its bytes live in the thumbnail store and their content
+ * hash. Kept out of the images table so loading, listing and dirty-checking images only touches metadata columns.
+ */
+@Entity
+@Table(name = "image_thumbnails",
+        uniqueConstraints = @UniqueConstraint(name = "uk_image_thumbnails_img_profile", columnNames = {"img_id", "profile"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImageThumbnail {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "image_thumbnails_seq")
+    @SequenceGenerator(name = "image_thumbnails_seq", sequenceName = "image_thumbnails_seq", allocationSize = 50)
+    @Column(name = "thumbnail_id")
+    private Long thumbnailId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "img_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Image image;
+
+    @Column(name = "profile", nullable = false, length = 32)
+    private String profile;
+
+    @Column(name = "width", nullable = false)
+    private Integer width;
+
+    @Column(name = "height", nullable = false)
+    private Integer height;
+
+    @Embedded
+    private ThumbnailPointer pointer;
+
+    //SHA-256 of the thumbnail bytes, used as a strong ETag without reading the bytes
+    @Column(name = "content_hash", length = 64, nullable = false)
+    private String contentHash;
+}
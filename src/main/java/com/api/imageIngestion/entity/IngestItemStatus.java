@@ -0,0 +1,13 @@
+package com.api.imageIngestion.entity;
+
+/**
+ * Lifecycle of one image of an asynchronous ingestion job
+ */
+public enum IngestItemStatus {
+    //waiting to be leased, either new or released for another attempt
+    PENDING,
+    //held by a worker until lease_expires_at; an expired lease can be taken over by any instance
+    LEASED,
+    DONE,
+    FAILED
+}
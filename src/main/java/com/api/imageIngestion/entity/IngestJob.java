@@ -0,0 +1,39 @@
+package com.api.imageIngestion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An asynchronous upload of an image set. The overall status is derived from its items, so no instance ever has to
+ * update this row after submission.
+ */
+@Entity
+@Table(name = "ingest_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngestJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "job_id")
+    private Long jobId;
+
+    //image set created at submission; its images fill in as items complete
+    @Column(name = "set_id", nullable = false)
+    private Long setId;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
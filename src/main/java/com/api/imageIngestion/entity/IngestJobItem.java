@@ -0,0 +1,64 @@
+package com.api.imageIngestion.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * One spooled image of an ingestion job, and the unit of work that instances lease from the job table
+ */
+@Entity
+@Table(name = "ingest_job_items",
+        indexes = @Index(name = "idx_ingest_job_items_status_lease", columnList = "status, lease_expires_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngestJobItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ingest_job_items_seq")
+    @SequenceGenerator(name = "ingest_job_items_seq", sequenceName = "ingest_job_items_seq", allocationSize = 50)
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "job_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private IngestJob job;
+
+    //position of the image in the upload request
+    @Column(name = "item_index", nullable = false)
+    private Integer itemIndex;
+
+    //image row created at submission, completed with dimensions and thumbnails by the worker
+    @Column(name = "img_id", nullable = false)
+    private Long imgId;
+
+    //uploaded bytes, relative to the spool directory
+    @Column(name = "spool_path", nullable = false)
+    private String spoolPath;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private IngestItemStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "lease_owner", length = 128)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+}
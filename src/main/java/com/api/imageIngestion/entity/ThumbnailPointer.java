@@ -0,0 +1,32 @@
+package com.api.imageIngestion.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Location of a thumbnail inside the segment store: the namespace of the instance that wrote it, the segment file, the
+ * byte offset of the payload and its length
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ThumbnailPointer {
+
+    @Column(name = "thumbnail_namespace", length = 64)
+    private String namespace;
+
+    @Column(name = "thumbnail_segment")
+    private Integer segment;
+
+    @Column(name = "thumbnail_offset")
+    private Long offset;
+
+    @Column(name = "thumbnail_length")
+    private Integer length;
+}
@@ -0,0 +1,7 @@
+package com.api.imageIngestion.event;
+
+/**
+ * Published whenever an image set or any of its images is written
+ */
+public record ImageSetChangedEvent(Long setId) {
+}
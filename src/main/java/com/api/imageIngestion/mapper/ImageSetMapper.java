@@ -3,9 +3,15 @@ package com.api.imageIngestion.mapper;
 import com.api.imageIngestion.dto.*;
 import com.api.imageIngestion.entity.Image;
 import com.api.imageIngestion.entity.ImageSet;
+import com.api.imageIngestion.entity.ImageThumbnail;
+import com.api.imageIngestion.repository.projection.ImageMetadataView;
+import com.api.imageIngestion.repository.projection.ImageSetSummary;
+import com.api.imageIngestion.repository.projection.ImageThumbnailRowView;
+import com.api.imageIngestion.repository.projection.ThumbnailSizeView;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Component
@@ -52,12 +58,20 @@ public class ImageSetMapper {
                     .build();
         }
 
+        //list the stored sizes so clients can pick one from the thumbnail endpoint
+        List<ThumbnailSizeDTO> sizes = image.getThumbnails() != null
+                ? image.getThumbnails().stream()
+                .map(t -> ThumbnailSizeDTO.builder().profile(t.getProfile()).width(t.getWidth()).height(t.getHeight()).build())
+                .collect(Collectors.toList())
+                : null;
+
         return ImageResponseDTO.builder()
                 .imgId(image.getImgId())
                 .imgName(image.getImgName())
                 .thumbnail(image.getThumbnail())
                 .timestamp(image.getTimestamp())
                 .dimensions(dimensionsDTO)
+                .thumbnailSizes(sizes)
                 .build();
     }
 
@@ -160,4 +174,172 @@ public class ImageSetMapper {
                 .dimensions(dimensionsDTO)
                 .build();
     }
+
+    /**
+     * Convert a set projection and its image count to ImageSetListItemDTO, used by the paginated listing
+     */
+    public ImageSetListItemDTO toListItemDTO(ImageSetSummary summary, long imageCount) {
+        if (summary == null) {
+            return null;
+        }
+
+        return ImageSetListItemDTO.builder()
+                .imageSetId(summary.getSetId())
+                .imageSetName(summary.getSetName())
+                .createdAt(summary.getCreatedAt())
+                .imageCount(imageCount)
+                .build();
+    }
+
+    /**
+     * Convert set, image and thumbnail size projections to ImageSetMetadataResponseDTO, used when the metadata view is read without loading entities
+     */
+    public ImageSetMetadataResponseDTO toImageSetMetadataResponseDTO(ImageSetSummary summary, List<ImageMetadataView> images,
+                                                                     List<ThumbnailSizeView> sizes) {
+        if (summary == null) {
+            return null;
+        }
+
+        return ImageSetMetadataResponseDTO.builder()
+                .imageSetId(summary.getSetId())
+                .imageSetName(summary.getSetName())
+                .createdAt(summary.getCreatedAt())
+                .images(toImageMetadataDTOs(images, sizes))
+                .build();
+    }
+
+    /**
+     * Convert one page of image metadata and thumbnail size projections to ImageMetadataPageDTO
+     */
+    public ImageMetadataPageDTO toImageMetadataPageDTO(Long setId, List<ImageMetadataView> images, List<ThumbnailSizeView> sizes,
+                                                       Long nextAfter) {
+        return ImageMetadataPageDTO.builder()
+                .imageSetId(setId)
+                .images(toImageMetadataDTOs(images, sizes))
+                .nextAfter(nextAfter)
+                .build();
+    }
+
+    /**
+     * Convert an image metadata projection, its thumbnail rows and its default-profile thumbnail bytes to ImageResponseDTO, used by the paged image view
+     */
+    public ImageResponseDTO toImageResponseDTO(ImageMetadataView view, List<ImageThumbnail> thumbnails, byte[] thumbnail) {
+        if (view == null) {
+            return null;
+        }
+
+        ImageMetadataDTO metadata = toImageMetadataDTO(view);
+        List<ThumbnailSizeDTO> sizes = thumbnails != null
+                ? thumbnails.stream()
+                .map(t -> ThumbnailSizeDTO.builder().profile(t.getProfile()).width(t.getWidth()).height(t.getHeight()).build())
+                .collect(Collectors.toList())
+                : null;
+
+        return ImageResponseDTO.builder()
+                .imgId(metadata.getImgId())
+                .imgName(metadata.getImgName())
+                .thumbnail(thumbnail)
+                .timestamp(metadata.getTimestamp())
+                .dimensions(metadata.getDimensions())
+                .thumbnailSizes(sizes)
+                .build();
+    }
+
+    /**
+     * Convert the joined image and thumbnail rows of one image to ImageResponseDTO, used by the streaming set view
+     */
+    public ImageResponseDTO toImageResponseDTO(List<ImageThumbnailRowView> rows, byte[] thumbnail) {
+        if (rows == null || rows.isEmpty()) {
+            return null;
+        }
+
+        ImageMetadataDTO metadata = toImageMetadataDTO(rows);
+        return ImageResponseDTO.builder()
+                .imgId(metadata.getImgId())
+                .imgName(metadata.getImgName())
+                .thumbnail(thumbnail)
+                .timestamp(metadata.getTimestamp())
+                .dimensions(metadata.getDimensions())
+                .thumbnailSizes(metadata.getThumbnailSizes())
+                .build();
+    }
+
+    /**
+     * Convert the joined image and thumbnail rows of one image to ImageMetadataDTO, used by the streaming metadata view
+     */
+    public ImageMetadataDTO toImageMetadataDTO(List<ImageThumbnailRowView> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return null;
+        }
+
+        ImageThumbnailRowView first = rows.get(0);
+        DimensionsDTO dimensionsDTO = null;
+        if (first.getWidth() != null || first.getHeight() != null || first.getAspectRatio() != null) {
+            dimensionsDTO = DimensionsDTO.builder()
+                    .width(first.getWidth())
+                    .height(first.getHeight())
+                    .aspectRatio(first.getAspectRatio())
+                    .build();
+        }
+
+        //an image without thumbnails comes as a single row with null thumbnail columns
+        List<ThumbnailSizeDTO> sizes = rows.stream()
+                .filter(row -> row.getProfile() != null)
+                .map(row -> ThumbnailSizeDTO.builder().profile(row.getProfile()).width(row.getThumbnailWidth()).height(row.getThumbnailHeight()).build())
+                .collect(Collectors.toList());
+
+        return ImageMetadataDTO.builder()
+                .imgId(first.getImgId())
+                .imgName(first.getImgName())
+                .timestamp(first.getTimestamp())
+                .dimensions(dimensionsDTO)
+                .thumbnailSizes(sizes)
+                .build();
+    }
+
+    /**
+     * Convert image metadata projections to ImageMetadataDTOs, each with the sizes listed for it in sizes
+     */
+    private List<ImageMetadataDTO> toImageMetadataDTOs(List<ImageMetadataView> images, List<ThumbnailSizeView> sizes) {
+        Map<Long, List<ThumbnailSizeDTO>> sizesByImage = sizes != null
+                ? sizes.stream().collect(Collectors.groupingBy(ThumbnailSizeView::getImgId,
+                Collectors.mapping(v -> ThumbnailSizeDTO.builder().profile(v.getProfile()).width(v.getWidth()).height(v.getHeight()).build(),
+                        Collectors.toList())))
+                : Map.of();
+
+        return images != null
+                ? images.stream()
+                .map(view -> {
+                    ImageMetadataDTO dto = toImageMetadataDTO(view);
+                    dto.setThumbnailSizes(sizesByImage.getOrDefault(view.getImgId(), List.of()));
+                    return dto;
+                })
+                .collect(Collectors.toList())
+                : null;
+    }
+
+    /**
+     * Convert an image metadata projection to ImageMetadataDTO
+     */
+    public ImageMetadataDTO toImageMetadataDTO(ImageMetadataView view) {
+        if (view == null) {
+            return null;
+        }
+
+        DimensionsDTO dimensionsDTO = null;
+        if (view.getWidth() != null || view.getHeight() != null || view.getAspectRatio() != null) {
+            dimensionsDTO = DimensionsDTO.builder()
+                    .width(view.getWidth())
+                    .height(view.getHeight())
+                    .aspectRatio(view.getAspectRatio())
+                    .build();
+        }
+
+        return ImageMetadataDTO.builder()
+                .imgId(view.getImgId())
+                .imgName(view.getImgName())
+                .timestamp(view.getTimestamp())
+                .dimensions(dimensionsDTO)
+                .build();
+    }
 }
@@ -0,0 +1,55 @@
+package com.api.imageIngestion.mapper;
+
+import com.api.imageIngestion.dto.IngestJobImageDTO;
+import com.api.imageIngestion.dto.IngestJobResponseDTO;
+import com.api.imageIngestion.dto.IngestJobStatus;
+import com.api.imageIngestion.entity.IngestItemStatus;
+import com.api.imageIngestion.entity.IngestJob;
+import com.api.imageIngestion.entity.IngestJobItem;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class IngestJobMapper {
+
+    /**
+     * Convert an IngestJob and its items to IngestJobResponseDTO, deriving the overall status from the items
+     */
+    public IngestJobResponseDTO toResponseDTO(IngestJob job, List<IngestJobItem> items) {
+        int done = (int) items.stream().filter(i -> i.getStatus() == IngestItemStatus.DONE).count();
+        int failed = (int) items.stream().filter(i -> i.getStatus() == IngestItemStatus.FAILED).count();
+
+        return IngestJobResponseDTO.builder()
+                .jobId(job.getJobId())
+                .imageSetId(job.getSetId())
+                .status(toJobStatus(items, done, failed))
+                .createdAt(job.getCreatedAt())
+                .totalImages(items.size())
+                .completedImages(done)
+                .failedImages(failed)
+                .images(items.stream().map(this::toImageDTO).toList())
+                .build();
+    }
+
+    /**
+     * Convert IngestJobItem to IngestJobImageDTO
+     */
+    public IngestJobImageDTO toImageDTO(IngestJobItem item) {
+        return IngestJobImageDTO.builder()
+                .index(item.getItemIndex())
+                .imgId(item.getImgId())
+                .status(item.getStatus())
+                .attempts(item.getAttempts())
+                .error(item.getLastError())
+                .build();
+    }
+
+    private IngestJobStatus toJobStatus(List<IngestJobItem> items, int done, int failed) {
+        if (done + failed == items.size()) {
+            return failed == 0 ? IngestJobStatus.SUCCEEDED : IngestJobStatus.FAILED;
+        }
+        boolean started = done + failed > 0 || items.stream().anyMatch(i -> i.getAttempts() > 0);
+        return started ? IngestJobStatus.RUNNING : IngestJobStatus.QUEUED;
+    }
+}
@@ -0,0 +1,164 @@
+package com.api.imageIngestion.metrics;
+
+import com.api.imageIngestion.processing.ImageHeader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-stage timers and size distributions of the ingestion pipeline. Tags are limited to the image format and the
+ * thumbnail profile, both of which come from a small fixed set, so the number of series stays bounded no matter
+ * what is uploaded. On-demand renditions are recorded under the single profile {@value #RENDITION_PROFILE}, never
+ * under their size and fit.
+ */
+@Component
+public class IngestionMetrics {
+
+    public static final String PREFIX = "image.ingest";
+    public static final String REJECTIONS = PREFIX + ".rejections";
+    // profile tag shared by every on-demand rendition, whatever its size
+    public static final String RENDITION_PROFILE = "rendition";
+
+    /**
+     * Stages timed per image format
+     */
+    public enum ImageStage {
+        PROBE, DECODE
+    }
+
+    /**
+     * Stages timed per thumbnail profile
+     */
+    public enum ThumbnailStage {
+        RESIZE, ENCODE
+    }
+
+    /**
+     * Stages timed per request, across all images: registering new content before the transaction opens, then the
+     * flush that writes the batched inserts
+     */
+    public enum RequestStage {
+        STORE, PERSIST
+    }
+
+    /**
+     * Reasons an upload is turned away that are detected by the pipeline itself (decode budget rejections are
+     * counted by the budget)
+     */
+    public enum Rejection {
+        UNREADABLE, DECODE_FAILED, RENDER_FAILED
+    }
+
+    /**
+     * Uploads that skipped decoding because their content was already known or was being rendered by another upload
+     */
+    public enum Deduplication {
+        KNOWN, COALESCED
+    }
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+    private final Map<Rejection, Counter> rejections = new ConcurrentHashMap<>();
+    private final Map<Deduplication, Counter> deduplications = new ConcurrentHashMap<>();
+    private final Counter orphanedBytes;
+
+    public IngestionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.orphanedBytes = Counter.builder(PREFIX + ".thumbnail.orphaned")
+                .description("Thumbnail bytes stored for content that lost its registration and are garbage in the store")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Record a successful header probe together with the size of the upload and its pixel count
+     */
+    public void probed(ImageHeader header, long inputBytes, long nanos) {
+        String format = format(header.format());
+        time(ImageStage.PROBE, format, nanos);
+        summary("input.bytes", "format", format, "bytes").record(inputBytes);
+        summary("input.pixels", "format", format, "pixels").record(header.pixelCount());
+    }
+
+    public void time(ImageStage stage, String format, long nanos) {
+        timer(stage.name(), "format", format(format)).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void time(ThumbnailStage stage, String profile, long nanos) {
+        timer(stage.name(), "profile", profile).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void time(RequestStage stage, long nanos) {
+        timer(stage.name(), null, null).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the encoded size of one thumbnail
+     */
+    public void thumbnailEncoded(String profile, int bytes) {
+        summary("thumbnail.bytes", "profile", profile, "bytes").record(bytes);
+    }
+
+    public void rejected(Rejection cause) {
+        rejections.computeIfAbsent(cause, c -> Counter.builder(REJECTIONS)
+                .description("Uploads rejected by the ingestion pipeline, by cause")
+                .tag("cause", tagValue(c.name()))
+                .register(registry)).increment();
+    }
+
+    public void deduplicated(Deduplication result) {
+        deduplications.computeIfAbsent(result, r -> Counter.builder(PREFIX + ".deduplicated")
+                .description("Uploads whose content was not decoded again, by how it was found")
+                .tag("result", tagValue(r.name()))
+                .register(registry)).increment();
+    }
+
+    /**
+     * Count thumbnail bytes appended to the store for content whose entry was never committed; nothing points at them
+     */
+    public void thumbnailsOrphaned(long bytes) {
+        orphanedBytes.increment(bytes);
+    }
+
+    private Timer timer(String stage, String tagKey, String tagValue) {
+        String name = PREFIX + "." + tagValue(stage);
+        return timers.computeIfAbsent(name + "|" + tagValue, k -> {
+            Timer.Builder builder = Timer.builder(name).description("Time spent in the " + tagValue(stage) + " stage of ingestion");
+            if (tagKey != null) {
+                builder.tag(tagKey, tagValue);
+            }
+            return builder.register(registry);
+        });
+    }
+
+    private DistributionSummary summary(String metric, String tagKey, String tagValue, String unit) {
+        String name = PREFIX + "." + metric;
+        return summaries.computeIfAbsent(name + "|" + tagValue, k -> DistributionSummary.builder(name)
+                .baseUnit(unit)
+                .tag(tagKey, tagValue)
+                .register(registry));
+    }
+
+    /**
+     * ImageIO reports the same format under several names (JPEG, jpeg, jpg); fold them onto one tag value
+     */
+    static String format(String format) {
+        if (format == null) {
+            return "unknown";
+        }
+        String lower = format.toLowerCase(Locale.ROOT);
+        return lower.equals("jpg") ? "jpeg" : lower;
+    }
+
+    private static String tagValue(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
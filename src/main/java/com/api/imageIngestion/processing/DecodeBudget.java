@@ -0,0 +1,174 @@
+package com.api.imageIngestion.processing;
+
+import com.api.imageIngestion.config.DecodeBudgetProperties;
+import com.api.imageIngestion.exception.CapacityExceededException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for decoding. Every image reserves an estimate of its decoded memory, computed from the header
+ * dimensions, before any pixels are read, and gives it back once its thumbnails are rendered. When the budget is
+ * used up an image waits briefly for others to finish and is then rejected, so a burst of huge uploads is turned
+ * away with 503 instead of exhausting the heap.
+ */
+@Component
+public class DecodeBudget {
+
+    //decoded rasters are 3-4 bytes per pixel; the halving chain of the resampler adds at most a third on top
+    private static final int RASTER_BYTES_PER_PIXEL = 4;
+
+    /**
+     * Budget held by one image until its work is done
+     */
+    public interface Reservation extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final long maxBytes;
+    private final long maxImagePixels;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition released = lock.newCondition();
+    private long reservedBytes;
+    private int waiting;
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder pixelLimitRejections = new LongAdder();
+    private final LongAdder memoryLimitRejections = new LongAdder();
+
+    public DecodeBudget(DecodeBudgetProperties properties) {
+        this.maxBytes = properties.getMaxBytes() > 0 ? properties.getMaxBytes() : Runtime.getRuntime().maxMemory() / 2;
+        this.maxImagePixels = properties.getMaxImagePixels();
+        this.maxWait = properties.getMaxWait();
+        this.retryAfter = properties.getRetryAfter();
+    }
+
+    /**
+     * Estimated peak memory of decoding and thumbnailing an image of the given header
+     */
+    public static long estimateBytes(ImageHeader header) {
+        long raster = header.pixelCount() * RASTER_BYTES_PER_PIXEL;
+        return raster + raster / 3;
+    }
+
+    /**
+     * Reject an image that could never be admitted: larger than the pixel cap, or estimated above the whole budget
+     */
+    public void checkLimits(int index, ImageHeader header) {
+        if (header.pixelCount() > maxImagePixels) {
+            pixelLimitRejections.increment();
+            throw new IllegalArgumentException("Image at index " + index + " is " + header.width() + "x" + header.height()
+                    + ", which exceeds the limit of " + maxImagePixels + " pixels");
+        }
+        if (estimateBytes(header) > maxBytes) {
+            memoryLimitRejections.increment();
+            throw new IllegalArgumentException("Image at index " + index + " is " + header.width() + "x" + header.height()
+                    + ", which is too large to decode on this server");
+        }
+    }
+
+    /**
+     * Reserve the estimated memory of an image, waiting up to the configured time for other images to release theirs
+     */
+    public Reservation reserve(ImageHeader header) {
+        long bytes = Math.min(estimateBytes(header), maxBytes);
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        lock.lock();
+        try {
+            waiting++;
+            try {
+                while (reservedBytes + bytes > maxBytes) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw rejected();
+                    }
+                    released.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw rejected();
+            } finally {
+                waiting--;
+            }
+            reservedBytes += bytes;
+        } finally {
+            lock.unlock();
+        }
+        return new Reservation() {
+            private boolean closed;
+
+            @Override
+            public void close() {
+                if (!closed) {
+                    closed = true;
+                    release(bytes);
+                }
+            }
+        };
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getReservedBytes() {
+        lock.lock();
+        try {
+            return reservedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Images turned away because the budget stayed exhausted for longer than the maximum wait
+     */
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    /**
+     * Images turned away by {@link #checkLimits} for exceeding the pixel cap
+     */
+    public long getPixelLimitRejections() {
+        return pixelLimitRejections.sum();
+    }
+
+    /**
+     * Images turned away by {@link #checkLimits} for being estimated above the whole budget
+     */
+    public long getMemoryLimitRejections() {
+        return memoryLimitRejections.sum();
+    }
+
+    private void release(long bytes) {
+        lock.lock();
+        try {
+            reservedBytes -= bytes;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CapacityExceededException rejected() {
+        rejections.increment();
+        return new CapacityExceededException("Server is busy decoding other images, retry in "
+                + retryAfter.toSeconds() + " seconds", retryAfter);
+    }
+}
@@ -0,0 +1,15 @@
+package com.api.imageIngestion.processing;
+
+/**
+ * Encode counters of one thumbnail profile since startup
+ */
+public record EncodeStats(String profile, JpegSettings settings, long encodes, long totalNanos, long totalBytes) {
+
+    public double averageMicros() {
+        return encodes == 0 ? 0.0 : totalNanos / 1000.0 / encodes;
+    }
+
+    public double averageBytes() {
+        return encodes == 0 ? 0.0 : (double) totalBytes / encodes;
+    }
+}
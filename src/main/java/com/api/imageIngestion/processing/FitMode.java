@@ -0,0 +1,13 @@
+package com.api.imageIngestion.processing;
+
+/**
+ * How an on-demand rendition is fitted into the requested box
+ */
+public enum FitMode {
+
+    /** Scale to fit entirely inside the box, keeping the aspect ratio. */
+    CONTAIN,
+
+    /** Scale to cover the whole box, keeping the aspect ratio, and crop the overflow around the centre. */
+    COVER
+}
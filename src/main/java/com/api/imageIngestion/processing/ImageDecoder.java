@@ -0,0 +1,86 @@
+package com.api.imageIngestion.processing;
+
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+@Component
+public class ImageDecoder {
+
+    /**
+     * Sniff the image format and read width/height from the header only. No pixel data is decoded, so a
+     * corrupted or unsupported file is rejected before any expensive work is done.
+     */
+    public ImageHeader probe(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            return probe(in);
+        }
+    }
+
+    /**
+     * Same as {@link #probe(Path)} for an image already held in memory
+     */
+    public ImageHeader probe(byte[] bytes) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            return probe(in);
+        }
+    }
+
+    /**
+     * Decode the first frame of the image into a raster. The file is read through a seekable file-backed stream,
+     * so no copy of the compressed bytes is made on the heap. Callers are expected to decode each upload once and
+     * reuse the result for every downstream stage.
+     */
+    public BufferedImage decode(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            return decode(in);
+        }
+    }
+
+    /**
+     * Same as {@link #decode(Path)} for an image already held in memory
+     */
+    public BufferedImage decode(byte[] bytes) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            return decode(in);
+        }
+    }
+
+    private ImageHeader probe(ImageInputStream in) throws IOException {
+        ImageReader reader = readerFor(in);
+        try {
+            reader.setInput(in, true, true);
+            return new ImageHeader(reader.getFormatName(), reader.getWidth(0), reader.getHeight(0));
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private BufferedImage decode(ImageInputStream in) throws IOException {
+        ImageReader reader = readerFor(in);
+        try {
+            reader.setInput(in, true, true);
+            return reader.read(0, reader.getDefaultReadParam());
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private ImageReader readerFor(ImageInputStream in) {
+        if (in == null) {
+            throw new IllegalArgumentException("unable to open image stream");
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) {
+            throw new IllegalArgumentException("unsupported format or corrupted file");
+        }
+        return readers.next();
+    }
+}
@@ -0,0 +1,11 @@
+package com.api.imageIngestion.processing;
+
+/**
+ * Format and pixel dimensions read from an image header, without decoding any pixel data
+ */
+public record ImageHeader(String format, int width, int height) {
+
+    public long pixelCount() {
+        return (long) width * height;
+    }
+}
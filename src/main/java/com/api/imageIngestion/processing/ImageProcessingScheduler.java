@@ -0,0 +1,213 @@
+package com.api.imageIngestion.processing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Worker threads for CPU-bound image work, one per core by default and separate from the request and I/O threads.
+ * Tasks are queued per flow (an upload request or an ingestion job), and the workers take one task from each flow
+ * with pending work in turn. A flow with a thousand images therefore gets the same share of the cores as a flow with
+ * one, instead of all of them until it is done. A flow holds at most flowCapacity pending tasks; submitting more
+ * blocks the submitter until one of its own tasks starts, which throttles a large batch without delaying anyone else.
+ */
+public class ImageProcessingScheduler {
+
+    private final int parallelism;
+    private final int flowCapacity;
+    private final List<Thread> workers;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private final Condition taskStarted = lock.newCondition();
+    //pending tasks per flow, and the flows with pending tasks in the order they get their next turn
+    private final Map<Object, ArrayDeque<Runnable>> queues = new HashMap<>();
+    private final ArrayDeque<Object> turns = new ArrayDeque<>();
+    private int queued;
+    private int active;
+    private long completed;
+    private boolean shutdown;
+
+    public ImageProcessingScheduler(int parallelism, int flowCapacity) {
+        this.parallelism = Math.max(1, parallelism);
+        this.flowCapacity = Math.max(1, flowCapacity);
+        this.workers = new ArrayList<>(this.parallelism);
+        for (int i = 1; i <= this.parallelism; i++) {
+            Thread worker = new Thread(this::work, "image-proc-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Executor queueing its tasks in the given flow. Tasks of one flow start in submission order; flows are equal if
+     * their keys are.
+     */
+    public Executor flow(Object key) {
+        return task -> submit(key, task);
+    }
+
+    /**
+     * Queue a task in a flow, waiting while the flow already holds flowCapacity pending tasks
+     */
+    public void submit(Object flow, Runnable task) {
+        lock.lock();
+        try {
+            while (true) {
+                if (shutdown) {
+                    throw new RejectedExecutionException("Image processing scheduler is shut down");
+                }
+                ArrayDeque<Runnable> queue = queues.get(flow);
+                if (queue == null) {
+                    queue = new ArrayDeque<>();
+                    queues.put(flow, queue);
+                    turns.addLast(flow);
+                }
+                if (queue.size() < flowCapacity) {
+                    queue.addLast(task);
+                    queued++;
+                    workAvailable.signal();
+                    return;
+                }
+                try {
+                    taskStarted.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("Interrupted while waiting for queue space", e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop accepting tasks; the workers finish the queued ones and exit
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            shutdown = true;
+            workAvailable.signalAll();
+            taskStarted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Tasks waiting for a worker, across all flows
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flows with tasks waiting for a worker
+     */
+    public int getQueuedFlows() {
+        lock.lock();
+        try {
+            return queues.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActiveCount() {
+        lock.lock();
+        try {
+            return active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCompletedCount() {
+        lock.lock();
+        try {
+            return completed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public SchedulerStats stats() {
+        lock.lock();
+        try {
+            return new SchedulerStats(parallelism, active, queued, queues.size(), completed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work() {
+        while (true) {
+            Runnable task = next();
+            if (task == null) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable t) {
+                // tasks report their own failures; keep the worker alive like a pool would replace it
+                Thread current = Thread.currentThread();
+                current.getUncaughtExceptionHandler().uncaughtException(current, t);
+            } finally {
+                lock.lock();
+                try {
+                    active--;
+                    completed++;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Take the head task of the flow whose turn it is, moving the flow to the back of the turn order if it has more;
+     * null once shut down and drained
+     */
+    private Runnable next() {
+        lock.lock();
+        try {
+            while (turns.isEmpty()) {
+                if (shutdown) {
+                    return null;
+                }
+                workAvailable.awaitUninterruptibly();
+            }
+            Object flow = turns.pollFirst();
+            ArrayDeque<Runnable> queue = queues.get(flow);
+            Runnable task = queue.pollFirst();
+            if (queue.isEmpty()) {
+                queues.remove(flow);
+            } else {
+                turns.addLast(flow);
+            }
+            queued--;
+            active++;
+            taskStarted.signalAll();
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.api.imageIngestion.processing;
+
+/**
+ * JPEG encoder settings of one thumbnail profile
+ *
+ * @param quality         compression quality between 0 and 1
+ * @param progressive     progressive instead of baseline scan order
+ * @param optimizeHuffman compute image-specific Huffman tables instead of the standard ones (smaller files, same pixels)
+ */
+public record JpegSettings(float quality, boolean progressive, boolean optimizeHuffman) {
+
+    //ImageIO's default quality with optimized tables
+    public static final JpegSettings DEFAULT = new JpegSettings(0.75f, false, true);
+
+    public JpegSettings {
+        if (quality < 0f || quality > 1f) {
+            throw new IllegalArgumentException("JPEG quality must be between 0 and 1: " + quality);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.api.imageIngestion.processing;
+
+/**
+ * An encoded thumbnail for one size profile
+ */
+public record RenderedThumbnail(String profile, int width, int height, byte[] bytes) {
+}
@@ -0,0 +1,16 @@
+package com.api.imageIngestion.processing;
+
+/**
+ * Quality/speed tiers for thumbnail downscaling
+ */
+public enum ResampleQuality {
+
+    /** Single bilinear pass straight to the target size. Fastest, aliases on large reductions. */
+    SPEED,
+
+    /** Halving steps with bilinear interpolation, then one exact-size pass. */
+    BALANCED,
+
+    /** Halving steps with bicubic interpolation, then one exact-size pass. */
+    QUALITY
+}
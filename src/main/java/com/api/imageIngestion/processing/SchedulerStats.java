@@ -0,0 +1,8 @@
+package com.api.imageIngestion.processing;
+
+/**
+ * Point-in-time state of the image processing scheduler: worker threads, tasks running and waiting, flows with
+ * waiting tasks, and tasks completed since startup
+ */
+public record SchedulerStats(int parallelism, int active, int queued, int queuedFlows, long completed) {
+}
@@ -0,0 +1,102 @@
+package com.api.imageIngestion.processing;
+
+import com.api.imageIngestion.config.ImageProcessingProperties;
+import com.api.imageIngestion.config.ThumbnailProfile;
+import com.api.imageIngestion.metrics.IngestionMetrics;
+import com.api.imageIngestion.metrics.IngestionMetrics.ThumbnailStage;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Component
+public class ThumbnailRenderer {
+
+    //on-demand renditions come in arbitrary sizes, so they are recorded under one profile name
+
+    private final ThumbnailResampler resampler;
+    private final ThumbnailEncoder encoder;
+    private final IngestionMetrics metrics;
+    private final List<ThumbnailProfile> profiles;
+
+    public ThumbnailRenderer(ThumbnailResampler resampler, ThumbnailEncoder encoder, IngestionMetrics metrics,
+                             ImageProcessingProperties properties) {
+        this.resampler = resampler;
+        this.encoder = encoder;
+        this.metrics = metrics;
+        // largest first, so each size can be derived from the previous one
+        this.profiles = properties.getThumbnailProfiles().stream()
+                .sorted(Comparator.comparingInt(ThumbnailProfile::getMaxWidth).reversed())
+                .toList();
+    }
+
+    /**
+     * Render every configured profile from one decoded source as a downscaling chain: each size is resampled from the
+     * next larger one rather than from the original, so the full-resolution raster is only read once. Profiles whose
+     * size collapses onto the previous one (because the source is narrower) share its encoded bytes.
+     */
+    public List<RenderedThumbnail> render(BufferedImage source) throws IOException {
+        List<RenderedThumbnail> rendered = new ArrayList<>(profiles.size());
+        BufferedImage current = source;
+        RenderedThumbnail previous = null;
+
+        for (ThumbnailProfile profile : profiles) {
+            int width = Math.min(profile.getMaxWidth(), source.getWidth());
+            int height = Math.max(1, (int) ((double) width / source.getWidth() * source.getHeight()));
+
+            if (previous != null && previous.width() == width && previous.height() == height) {
+                previous = new RenderedThumbnail(profile.getName(), width, height, previous.bytes());
+            } else {
+                current = resize(current, width, height, profile.getName());
+                previous = new RenderedThumbnail(profile.getName(), width, height,
+                        encode(current, profile.toJpegSettings(), profile.getName()));
+            }
+            rendered.add(previous);
+        }
+        return rendered;
+    }
+
+    /**
+     * Render one rendition of source fitted into a boxWidth x boxHeight box (Integer.MAX_VALUE leaves a side
+     * unbounded). The source is never upscaled, so a box larger than the source yields the source size, and COVER
+     * crops the overflowing side around the centre. The name only labels the result; the stages are recorded under
+     * the shared rendition profile, so arbitrary sizes do not add metric series.
+     */
+    public RenderedThumbnail renderFitted(BufferedImage source, int boxWidth, int boxHeight, FitMode fit, String name)
+            throws IOException {
+        double scaleX = (double) boxWidth / source.getWidth();
+        double scaleY = (double) boxHeight / source.getHeight();
+        double scale = Math.min(1.0, fit == FitMode.COVER ? Math.max(scaleX, scaleY) : Math.min(scaleX, scaleY));
+
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        BufferedImage scaled = resize(source, width, height, IngestionMetrics.RENDITION_PROFILE);
+
+        if (fit == FitMode.COVER && (width > boxWidth || height > boxHeight)) {
+            int cropWidth = Math.min(width, boxWidth);
+            int cropHeight = Math.min(height, boxHeight);
+            scaled = scaled.getSubimage((width - cropWidth) / 2, (height - cropHeight) / 2, cropWidth, cropHeight);
+            width = cropWidth;
+            height = cropHeight;
+        }
+        return new RenderedThumbnail(name, width, height, encode(scaled, JpegSettings.DEFAULT, IngestionMetrics.RENDITION_PROFILE));
+    }
+
+    private BufferedImage resize(BufferedImage source, int width, int height, String profile) {
+        long start = System.nanoTime();
+        BufferedImage resized = resampler.resize(source, width, height);
+        metrics.time(ThumbnailStage.RESIZE, profile, System.nanoTime() - start);
+        return resized;
+    }
+
+    private byte[] encode(BufferedImage image, JpegSettings settings, String profile) throws IOException {
+        long start = System.nanoTime();
+        byte[] bytes = encoder.encode(image, settings, profile);
+        metrics.time(ThumbnailStage.ENCODE, profile, System.nanoTime() - start);
+        metrics.thumbnailEncoded(profile, bytes.length);
+        return bytes;
+    }
+}
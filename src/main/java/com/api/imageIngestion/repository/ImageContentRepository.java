@@ -0,0 +1,29 @@
+package com.api.imageIngestion.repository;
+
+import com.api.imageIngestion.entity.ImageContent;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImageContentRepository extends JpaRepository<ImageContent, String> {
+
+    @EntityGraph(attributePaths = "thumbnails")
+    Optional<ImageContent> findWithThumbnailsByContentHash(String contentHash);
+
+    // Known contents among the hashes of a request or archive chunk, with their thumbnails, in one query
+    @EntityGraph(attributePaths = "thumbnails")
+    List<ImageContent> findWithThumbnailsByContentHashIn(Collection<String> contentHashes);
+
+    // Count count more images sharing the content (see ImageContent.refCount); runs in the caller's transaction, so it is undone with it
+    @Modifying
+    @Query("update ImageContent c set c.refCount = c.refCount + :count where c.contentHash = :contentHash")
+    int addReferences(@Param("contentHash") String contentHash, @Param("count") long count);
+}
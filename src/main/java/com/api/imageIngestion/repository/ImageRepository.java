@@ -1,9 +1,63 @@
 package com.api.imageIngestion.repository;
 
 import com.api.imageIngestion.entity.Image;
+import com.api.imageIngestion.repository.projection.ImageCountView;
+import com.api.imageIngestion.repository.projection.ImageMetadataView;
+import com.api.imageIngestion.repository.projection.ImageThumbnailRowView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface ImageRepository extends JpaRepository<Image, Long> {
+    // Metadata columns of every image in a set, in insertion order, without building Image entities
+    @Query("""
+            select i.imgId as imgId, i.imgName as imgName, i.timestamp as timestamp,
+                   i.width as width, i.height as height, i.aspectRatio as aspectRatio
+            from Image i
+            where i.imageSet.setId = :setId
+            order by i.imgId""")
+    List<ImageMetadataView> findMetadataBySetId(@Param("setId") Long setId);
+
+    // One page of a set's images with an id above afterImgId, a range scan of idx_images_set_img that never touches
+    // the set's image collection, so its cost does not depend on the size of the set or the position in it
+    @Query("""
+            select i.imgId as imgId, i.imgName as imgName, i.timestamp as timestamp,
+                   i.width as width, i.height as height, i.aspectRatio as aspectRatio
+            from Image i
+            where i.imageSet.setId = :setId and i.imgId > :afterImgId
+            order by i.imgId""")
+    List<ImageMetadataView> findMetadataPage(@Param("setId") Long setId, @Param("afterImgId") Long afterImgId, Limit limit);
+
+    // Every image of a set joined with its thumbnail rows, ordered so the rows of one image are adjacent, read through
+    // a forward-only cursor for the streaming set views. Rows are projections, so nothing accumulates in the
+    // persistence context however large the set is.
+    @Query("""
+            select i.imgId as imgId, i.imgName as imgName, i.timestamp as timestamp,
+                   i.width as width, i.height as height, i.aspectRatio as aspectRatio,
+                   t.profile as profile, t.width as thumbnailWidth, t.height as thumbnailHeight,
+                   t.pointer.namespace as namespace, t.pointer.segment as segment,
+                   t.pointer.offset as offset, t.pointer.length as length, t.contentHash as contentHash
+            from Image i left join i.thumbnails t
+            where i.imageSet.setId = :setId
+            order by i.imgId, t.width, t.profile""")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"))
+    Stream<ImageThumbnailRowView> streamRowsBySetId(@Param("setId") Long setId);
+
+    // Image counts of the sets on one listing page, answered from idx_images_set_img
+    @Query("""
+            select i.imageSet.setId as setId, count(i) as imageCount
+            from Image i
+            where i.imageSet.setId in :setIds
+            group by i.imageSet.setId""")
+    List<ImageCountView> countBySetIds(@Param("setIds") Collection<Long> setIds);
 }
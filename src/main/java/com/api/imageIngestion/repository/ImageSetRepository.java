@@ -1,13 +1,68 @@
 package com.api.imageIngestion.repository;
 
 import com.api.imageIngestion.entity.ImageSet;
+import com.api.imageIngestion.repository.projection.ImageSetSummary;
+import com.api.imageIngestion.repository.projection.ImageSetVersionView;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ImageSetRepository extends JpaRepository<ImageSet, Long> {
-    // Allow lookup by name if needed; returns all matches since names are not unique
-    List<ImageSet> findBySetName(String setName);
+    // Listing pages, newest first. Each page is a range scan of idx_image_sets_created (or idx_image_sets_name for a
+    // name prefix) starting after the (createdAt, setId) of the previous page's last row, so its cost does not depend
+    // on how many sets come before it. idx_image_sets_name carries (createdAt, setId) after the name, so within one
+    // name the scan is already in page order and stops at the limit, and the cursor is checked on index entries alone.
+    // Name prefixes are passed as LIKE patterns escaped with '\'.
+    @Query("""
+            select s.setId as setId, s.setName as setName, s.createdAt as createdAt from ImageSet s
+            order by s.createdAt desc, s.setId desc""")
+    List<ImageSetSummary> findPage(Limit limit);
+
+    @Query("""
+            select s.setId as setId, s.setName as setName, s.createdAt as createdAt from ImageSet s
+            where s.createdAt < :createdAt or (s.createdAt = :createdAt and s.setId < :setId)
+            order by s.createdAt desc, s.setId desc""")
+    List<ImageSetSummary> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("setId") Long setId, Limit limit);
+
+    @Query("""
+            select s.setId as setId, s.setName as setName, s.createdAt as createdAt from ImageSet s
+            where s.setName like :namePattern escape '\\'
+            order by s.createdAt desc, s.setId desc""")
+    List<ImageSetSummary> findPageByName(@Param("namePattern") String namePattern, Limit limit);
+
+    @Query("""
+            select s.setId as setId, s.setName as setName, s.createdAt as createdAt from ImageSet s
+            where s.setName like :namePattern escape '\\'
+              and (s.createdAt < :createdAt or (s.createdAt = :createdAt and s.setId < :setId))
+            order by s.createdAt desc, s.setId desc""")
+    List<ImageSetSummary> findPageByNameAfter(@Param("namePattern") String namePattern, @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("setId") Long setId, Limit limit);
+
+    // Full view: set and images in one select; thumbnail rows follow in a single subselect
+    @EntityGraph(attributePaths = "images")
+    Optional<ImageSet> findWithImagesBySetId(Long setId);
+
+    // Set-level columns only, for the metadata view
+    @Query("select s.setId as setId, s.setName as setName, s.createdAt as createdAt from ImageSet s where s.setId = :setId")
+    Optional<ImageSetSummary> findSummaryBySetId(@Param("setId") Long setId);
+
+    // Version and modification time only, a primary key lookup answering conditional GETs without touching images
+    @Query("select s.version as version, s.modifiedAt as modifiedAt from ImageSet s where s.setId = :setId")
+    Optional<ImageSetVersionView> findVersionBySetId(@Param("setId") Long setId);
+
+    // Record a change to a set or its images. The increment happens in the database, so concurrent writers to one
+    // set never lose a bump or conflict the way a JPA @Version would.
+    @Modifying
+    @Query("update ImageSet s set s.version = s.version + 1, s.modifiedAt = :modifiedAt where s.setId = :setId")
+    int touch(@Param("setId") Long setId, @Param("modifiedAt") Instant modifiedAt);
 }
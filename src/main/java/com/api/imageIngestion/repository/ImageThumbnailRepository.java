@@ -0,0 +1,48 @@
+package com.api.imageIngestion.repository;
+
+import com.api.imageIngestion.entity.ImageThumbnail;
+import com.api.imageIngestion.repository.projection.ThumbnailSizeView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImageThumbnailRepository extends JpaRepository<ImageThumbnail, Long> {
+
+    // Thumbnail row of an image for one profile, scoped to the owning set so an image id cannot be read through another set's URL
+    @Query("""
+            select t from ImageThumbnail t
+            where t.image.imgId = :imgId and t.image.imageSet.setId = :setId and t.profile = :profile""")
+    Optional<ImageThumbnail> findThumbnail(@Param("setId") Long setId, @Param("imgId") Long imgId, @Param("profile") String profile);
+
+    // Largest stored thumbnail of an image, the source on-demand renditions are rendered from
+    Optional<ImageThumbnail> findFirstByImageImgIdAndImageImageSetSetIdOrderByWidthDesc(Long imgId, Long setId);
+
+    // Thumbnail rows of the images on one page of a set, with the store pointers needed to read their bytes
+    @Query("""
+            select t from ImageThumbnail t
+            where t.image.imgId in :imgIds
+            order by t.image.imgId, t.width, t.profile""")
+    List<ImageThumbnail> findByImgIds(@Param("imgIds") Collection<Long> imgIds);
+
+    // Available sizes of the images on one page of a set
+    @Query("""
+            select t.image.imgId as imgId, t.profile as profile, t.width as width, t.height as height
+            from ImageThumbnail t
+            where t.image.imgId in :imgIds
+            order by t.image.imgId, t.width, t.profile""")
+    List<ThumbnailSizeView> findSizesByImgIds(@Param("imgIds") Collection<Long> imgIds);
+
+    // Available sizes of every image in a set, for the metadata view
+    @Query("""
+            select t.image.imgId as imgId, t.profile as profile, t.width as width, t.height as height
+            from ImageThumbnail t
+            where t.image.imageSet.setId = :setId
+            order by t.image.imgId, t.width, t.profile""")
+    List<ThumbnailSizeView> findSizesBySetId(@Param("setId") Long setId);
+}
@@ -0,0 +1,52 @@
+package com.api.imageIngestion.repository;
+
+import com.api.imageIngestion.entity.IngestItemStatus;
+import com.api.imageIngestion.entity.IngestJobItem;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface IngestJobItemRepository extends JpaRepository<IngestJobItem, Long> {
+
+    // Items free to lease: never leased, released for retry, or held by an instance whose lease ran out.
+    // Rows locked by another instance's lease transaction are skipped rather than waited on (lock timeout -2 = SKIP LOCKED).
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            select i from IngestJobItem i
+            where i.status = com.api.imageIngestion.entity.IngestItemStatus.PENDING
+               or (i.status = com.api.imageIngestion.entity.IngestItemStatus.LEASED and i.leaseExpiresAt < :now)
+            order by i.itemId""")
+    List<IngestJobItem> findLeasable(@Param("now") LocalDateTime now, Pageable page);
+
+    // Extend the leases an instance still holds
+    @Modifying
+    @Query("""
+            update IngestJobItem i set i.leaseExpiresAt = :expiresAt
+            where i.itemId in :itemIds and i.leaseOwner = :owner
+              and i.status = com.api.imageIngestion.entity.IngestItemStatus.LEASED""")
+    int extendLeases(@Param("itemIds") Collection<Long> itemIds, @Param("owner") String owner, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Move a leased item to its next status, only if the caller still holds the lease
+    @Modifying
+    @Query("""
+            update IngestJobItem i set i.status = :status, i.leaseOwner = null, i.leaseExpiresAt = null, i.lastError = :error
+            where i.itemId = :itemId and i.leaseOwner = :owner
+              and i.status = com.api.imageIngestion.entity.IngestItemStatus.LEASED""")
+    int release(@Param("itemId") Long itemId, @Param("owner") String owner,
+                @Param("status") IngestItemStatus status, @Param("error") String error);
+
+    List<IngestJobItem> findByJobJobIdOrderByItemIndex(Long jobId);
+}
@@ -0,0 +1,9 @@
+package com.api.imageIngestion.repository;
+
+import com.api.imageIngestion.entity.IngestJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IngestJobRepository extends JpaRepository<IngestJob, Long> {
+}
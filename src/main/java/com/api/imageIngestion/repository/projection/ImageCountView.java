@@ -0,0 +1,11 @@
+package com.api.imageIngestion.repository.projection;
+
+/**
+ * Number of images in one image set
+ */
+public interface ImageCountView {
+
+    Long getSetId();
+
+    Long getImageCount();
+}
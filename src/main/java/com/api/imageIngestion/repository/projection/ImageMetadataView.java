@@ -0,0 +1,21 @@
+package com.api.imageIngestion.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Metadata columns of an image, without anything thumbnail related
+ */
+public interface ImageMetadataView {
+
+    Long getImgId();
+
+    String getImgName();
+
+    LocalDateTime getTimestamp();
+
+    Integer getWidth();
+
+    Integer getHeight();
+
+    Double getAspectRatio();
+}
@@ -0,0 +1,15 @@
+package com.api.imageIngestion.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Set-level columns of an image set, without its images
+ */
+public interface ImageSetSummary {
+
+    Long getSetId();
+
+    String getSetName();
+
+    LocalDateTime getCreatedAt();
+}
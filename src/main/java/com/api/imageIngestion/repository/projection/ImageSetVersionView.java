@@ -0,0 +1,13 @@
+package com.api.imageIngestion.repository.projection;
+
+import java.time.Instant;
+
+/**
+ * Version and last modification time of an image set, for conditional GETs
+ */
+public interface ImageSetVersionView {
+
+    Long getVersion();
+
+    Instant getModifiedAt();
+}
@@ -0,0 +1,38 @@
+package com.api.imageIngestion.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Metadata columns of an image joined with one of its thumbnail rows, including where the thumbnail bytes live. The
+ * thumbnail columns are null for an image without thumbnails.
+ */
+public interface ImageThumbnailRowView {
+
+    Long getImgId();
+
+    String getImgName();
+
+    LocalDateTime getTimestamp();
+
+    Integer getWidth();
+
+    Integer getHeight();
+
+    Double getAspectRatio();
+
+    String getProfile();
+
+    Integer getThumbnailWidth();
+
+    Integer getThumbnailHeight();
+
+    String getNamespace();
+
+    Integer getSegment();
+
+    Long getOffset();
+
+    Integer getLength();
+
+    String getContentHash();
+}
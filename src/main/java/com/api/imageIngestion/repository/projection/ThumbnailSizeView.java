@@ -0,0 +1,15 @@
+package com.api.imageIngestion.repository.projection;
+
+/**
+ * Size profile of a stored thumbnail, without its location or bytes
+ */
+public interface ThumbnailSizeView {
+
+    Long getImgId();
+
+    String getProfile();
+
+    Integer getWidth();
+
+    Integer getHeight();
+}
@@ -0,0 +1,200 @@
+package com.api.imageIngestion.service;
+
+import com.api.imageIngestion.entity.ContentThumbnail;
+import com.api.imageIngestion.entity.ImageContent;
+import com.api.imageIngestion.entity.ThumbnailPointer;
+import com.api.imageIngestion.metrics.IngestionMetrics;
+import com.api.imageIngestion.metrics.IngestionMetrics.Deduplication;
+import com.api.imageIngestion.processing.ContentHash;
+import com.api.imageIngestion.processing.ImageHeader;
+import com.api.imageIngestion.processing.RenderedThumbnail;
+import com.api.imageIngestion.repository.ImageContentRepository;
+import com.api.imageIngestion.store.ThumbnailStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates uploads by content hash. Known content is looked up in the image_contents table; content that is
+ * being rendered right now is coalesced, so concurrent uploads of the same bytes wait for one render instead of each
+ * decoding it; and the rendered thumbnails are stored once per content and shared by every image that has it.
+ */
+@Component
+public class ImageContentIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageContentIndex.class);
+
+    //entries are registered under a striped lock so one instance never stores the same content twice
+    private static final int LOCK_STRIPES = 64;
+
+    private final ImageContentRepository repository;
+    private final ThumbnailStore thumbnailStore;
+    private final IngestionMetrics metrics;
+    private final TransactionTemplate registerTransaction;
+    private final Map<String, CompletableFuture<List<RenderedThumbnail>>> inFlight = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public ImageContentIndex(ImageContentRepository repository, ThumbnailStore thumbnailStore,
+                             IngestionMetrics metrics, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.thumbnailStore = thumbnailStore;
+        this.metrics = metrics;
+        // the entry is committed on its own, so other requests can share it before the registering request commits
+        this.registerTransaction = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Content entry with its stored thumbnails, if an upload with this hash has been processed before
+     */
+    public Optional<ImageContent> find(String contentHash) {
+        Optional<ImageContent> content = repository.findWithThumbnailsByContentHash(contentHash);
+        content.ifPresent(c -> metrics.deduplicated(Deduplication.KNOWN));
+        return content;
+    }
+
+    /**
+     * Content entries with their stored thumbnails for those of the given hashes that have been processed before, by
+     * hash, read in one query
+     */
+    public Map<String, ImageContent> findAll(Collection<String> contentHashes) {
+        if (contentHashes.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, ImageContent> found = new HashMap<>();
+        for (ImageContent content : repository.findWithThumbnailsByContentHashIn(contentHashes)) {
+            found.put(content.getContentHash(), content);
+            metrics.deduplicated(Deduplication.KNOWN);
+        }
+        return found;
+    }
+
+    /**
+     * Render content through renderer unless the same content is already being rendered, in which case wait for
+     * that result instead. The first caller renders on its own thread; failures are passed on to every waiter.
+     */
+    public List<RenderedThumbnail> render(String contentHash, Supplier<List<RenderedThumbnail>> renderer) {
+        CompletableFuture<List<RenderedThumbnail>> own = new CompletableFuture<>();
+        CompletableFuture<List<RenderedThumbnail>> running = inFlight.putIfAbsent(contentHash, own);
+        if (running != null) {
+            metrics.deduplicated(Deduplication.COALESCED);
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            List<RenderedThumbnail> rendered = renderer.get();
+            own.complete(rendered);
+            return rendered;
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(contentHash, own);
+        }
+    }
+
+    /**
+     * Store rendered thumbnails as the shared copy of a content and commit its entry. When another request registered
+     * the content first, its entry is returned and the given renditions are dropped. Callers register before they open
+     * their own transaction, which would otherwise be joined: suspending it instead would hold a second pooled
+     * connection per request, and enough concurrent uploads would then all wait for a connection none of them gives back.
+     * <p>
+     * The entry is looked up again under the lock before anything is appended, so within one instance thumbnails are
+     * only stored for content that is not registered yet. Thumbnails appended for an entry that then fails to commit
+     * (another instance registered the same content in between) are reported as garbage.
+     */
+    public ImageContent register(String contentHash, ImageHeader header, List<RenderedThumbnail> renditions) {
+        synchronized (locks[Math.floorMod(contentHash.hashCode(), LOCK_STRIPES)]) {
+            List<ThumbnailPointer> appended = new ArrayList<>();
+            try {
+                return registerTransaction.execute(status -> repository.findWithThumbnailsByContentHash(contentHash)
+                        .orElseGet(() -> repository.save(ImageContent.builder()
+                                .contentHash(contentHash)
+                                .format(header.format())
+                                .width(header.width())
+                                .height(header.height())
+                                .refCount(0L)
+                                .thumbnails(store(contentHash, renditions, appended))
+                                .build())));
+            } catch (DataIntegrityViolationException e) {
+                // registered by another instance in the meantime
+                orphaned(contentHash, appended);
+                return repository.findWithThumbnailsByContentHash(contentHash).orElseThrow(() -> e);
+            } catch (RuntimeException e) {
+                orphaned(contentHash, appended);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Report thumbnails that were appended to the store for an entry that was never committed. The store is
+     * append-only, so they stay in their segments; the log names them for whoever reclaims segments.
+     */
+    private void orphaned(String contentHash, List<ThumbnailPointer> appended) {
+        if (appended.isEmpty()) {
+            return;
+        }
+        long bytes = appended.stream().mapToLong(ThumbnailPointer::getLength).sum();
+        metrics.thumbnailsOrphaned(bytes);
+        log.warn("{} thumbnail(s) of content {} ({} bytes) were stored but not registered and are garbage: {}",
+                appended.size(), contentHash, bytes, appended);
+    }
+
+    /**
+     * Append each profile to the thumbnail store, tagged with the leading 64 bits of the content hash; profiles that
+     * collapsed onto the same encoded bytes share one copy. Every pointer written is added to appended as it is written.
+     */
+    private List<ContentThumbnail> store(String contentHash, List<RenderedThumbnail> renditions, List<ThumbnailPointer> appended) {
+        long key = Long.parseUnsignedLong(contentHash.substring(0, Math.min(16, contentHash.length())), 16);
+        Map<byte[], ContentThumbnail> written = new IdentityHashMap<>();
+        List<ContentThumbnail> thumbnails = new ArrayList<>(renditions.size());
+        try {
+            for (RenderedThumbnail rendition : renditions) {
+                ContentThumbnail sameBytes = written.get(rendition.bytes());
+                ThumbnailPointer pointer = sameBytes != null ? sameBytes.getPointer() : thumbnailStore.append(key, rendition.bytes());
+                if (sameBytes == null) {
+                    appended.add(pointer);
+                }
+                ContentThumbnail thumbnail = ContentThumbnail.builder()
+                        .profile(rendition.profile())
+                        .width(rendition.width())
+                        .height(rendition.height())
+                        .pointer(pointer)
+                        .thumbnailHash(sameBytes != null ? sameBytes.getThumbnailHash() : ContentHash.sha256Hex(rendition.bytes()))
+                        .build();
+                written.putIfAbsent(rendition.bytes(), thumbnail);
+                thumbnails.add(thumbnail);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store thumbnails of content " + contentHash, e);
+        }
+        return thumbnails;
+    }
+}
@@ -1,16 +1,41 @@
 package com.api.imageIngestion.service;
 
+import com.api.imageIngestion.dto.ImageMetadataPageDTO;
+import com.api.imageIngestion.dto.ImagePageDTO;
 import com.api.imageIngestion.dto.ImageSetCreateRequestDTO;
+import com.api.imageIngestion.dto.ImageSetListItemDTO;
 import com.api.imageIngestion.dto.ImageSetMetadataResponseDTO;
+import com.api.imageIngestion.dto.ImageSetPageDTO;
 import com.api.imageIngestion.dto.ImageSetResponseDTO;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
 
 public interface ImageService {
     ImageSetResponseDTO createImageSet(ImageSetCreateRequestDTO requestDTO, List<MultipartFile> files) throws Exception;
 
+    ImageSetListItemDTO importArchive(String setName, InputStream archive) throws IOException;
+
     ImageSetResponseDTO getImageSet(Long id);
 
     ImageSetMetadataResponseDTO getImageSetMetadata(Long id);
+
+    ImageSetVersion getImageSetVersion(Long id);
+
+    ImageSetPageDTO listImageSets(String namePrefix, String cursor, Integer limit);
+
+    ImagePageDTO listImages(Long setId, Long afterImgId, Integer limit);
+
+    ImageMetadataPageDTO listImageMetadata(Long setId, Long afterImgId, Integer limit);
+
+    String getThumbnailETag(Long setId, Long imgId, String profile);
+
+    byte[] getThumbnail(Long setId, Long imgId, String profile);
+
+    String registerStoredContent(int index, Path upload) throws IOException;
+
+    void completeStoredImage(Long imgId, String contentHash);
 }
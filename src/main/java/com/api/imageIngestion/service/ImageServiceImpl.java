@@ -1,26 +1,75 @@
 package com.api.imageIngestion.service;
 
+import com.api.imageIngestion.config.ImageProcessingProperties;
+import com.api.imageIngestion.config.ListingProperties;
 import com.api.imageIngestion.dto.ImageCreateRequestDTO;
+import com.api.imageIngestion.dto.ImageMetadataPageDTO;
+import com.api.imageIngestion.dto.ImagePageDTO;
+import com.api.imageIngestion.dto.ImageResponseDTO;
 import com.api.imageIngestion.dto.ImageSetCreateRequestDTO;
+import com.api.imageIngestion.dto.ImageSetListItemDTO;
 import com.api.imageIngestion.dto.ImageSetMetadataResponseDTO;
+import com.api.imageIngestion.dto.ImageSetPageDTO;
 import com.api.imageIngestion.dto.ImageSetResponseDTO;
 import com.api.imageIngestion.entity.Image;
+import com.api.imageIngestion.entity.ContentThumbnail;
+import com.api.imageIngestion.entity.ImageContent;
 import com.api.imageIngestion.entity.ImageSet;
+import com.api.imageIngestion.entity.ImageThumbnail;
+import com.api.imageIngestion.entity.ThumbnailPointer;
+import com.api.imageIngestion.event.ImageSetChangedEvent;
 import com.api.imageIngestion.exception.NotFoundException;
 import com.api.imageIngestion.mapper.ImageSetMapper;
+import com.api.imageIngestion.metrics.IngestionMetrics;
+import com.api.imageIngestion.metrics.IngestionMetrics.ImageStage;
+import com.api.imageIngestion.metrics.IngestionMetrics.Rejection;
+import com.api.imageIngestion.metrics.IngestionMetrics.RequestStage;
+import com.api.imageIngestion.processing.ContentHash;
+import com.api.imageIngestion.processing.DecodeBudget;
+import com.api.imageIngestion.processing.ImageDecoder;
+import com.api.imageIngestion.processing.ImageHeader;
+import com.api.imageIngestion.processing.ImageProcessingScheduler;
+import com.api.imageIngestion.processing.RenderedThumbnail;
+import com.api.imageIngestion.processing.ThumbnailRenderer;
+import com.api.imageIngestion.repository.ImageContentRepository;
 import com.api.imageIngestion.repository.ImageRepository;
 import com.api.imageIngestion.repository.ImageSetRepository;
+import com.api.imageIngestion.repository.ImageThumbnailRepository;
+import com.api.imageIngestion.repository.projection.ImageCountView;
+import com.api.imageIngestion.repository.projection.ImageMetadataView;
+import com.api.imageIngestion.repository.projection.ImageSetSummary;
+import com.api.imageIngestion.repository.projection.ImageSetVersionView;
+import com.api.imageIngestion.repository.projection.ThumbnailSizeView;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
 
 @Service
 public class ImageServiceImpl implements ImageService {
@@ -28,121 +77,816 @@ public class ImageServiceImpl implements ImageService {
     private final ImageSetRepository imageSetRepository;
     private final ImageRepository imageRepository;
     private final ImageSetMapper mapper;
+    private final ImageDecoder imageDecoder;
+    private final ImageThumbnailRepository imageThumbnailRepository;
+    private final ThumbnailRenderer thumbnailRenderer;
+    private final ImageProcessingProperties properties;
+    private final ListingProperties listingProperties;
+    private final ThumbnailReader thumbnailReader;
+    private final ImageContentIndex contentIndex;
+    private final ImageContentRepository imageContentRepository;
+    private final UploadSpool uploadSpool;
+    private final DecodeBudget decodeBudget;
+    private final IngestionMetrics metrics;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImageProcessingScheduler scheduler;
+    private final EntityManager entityManager;
+    private final TransactionTemplate persistTransaction;
 
     public ImageServiceImpl(ImageSetRepository imageSetRepository,
                             ImageRepository imageRepository,
-                            ImageSetMapper mapper) {
+                            ImageSetMapper mapper,
+                            ImageDecoder imageDecoder,
+                            ImageThumbnailRepository imageThumbnailRepository,
+                            ThumbnailRenderer thumbnailRenderer,
+                            ImageProcessingProperties properties,
+                            ListingProperties listingProperties,
+                            ThumbnailReader thumbnailReader,
+                            ImageContentIndex contentIndex,
+                            ImageContentRepository imageContentRepository,
+                            UploadSpool uploadSpool,
+                            DecodeBudget decodeBudget,
+                            IngestionMetrics metrics,
+                            ApplicationEventPublisher eventPublisher,
+                            ImageProcessingScheduler scheduler,
+                            EntityManager entityManager,
+                            PlatformTransactionManager transactionManager) {
         this.imageSetRepository = imageSetRepository;
         this.imageRepository = imageRepository;
         this.mapper = mapper;
+        this.imageDecoder = imageDecoder;
+        this.imageThumbnailRepository = imageThumbnailRepository;
+        this.thumbnailRenderer = thumbnailRenderer;
+        this.properties = properties;
+        this.listingProperties = listingProperties;
+        this.thumbnailReader = thumbnailReader;
+        this.contentIndex = contentIndex;
+        this.imageContentRepository = imageContentRepository;
+        this.uploadSpool = uploadSpool;
+        this.decodeBudget = decodeBudget;
+        this.metrics = metrics;
+        this.eventPublisher = eventPublisher;
+        this.scheduler = scheduler;
+        this.entityManager = entityManager;
+        // uploads are processed and their content registered before this transaction starts
+        this.persistTransaction = new TransactionTemplate(transactionManager);
     }
 
-    @Override
-    @Transactional
     /**
      * Create ImageSet and associated Images from request DTO and files, handling optional dimensions and thumbnail generation.
+     * Decoding, rendering and registering new content happen before the set's transaction starts, so no connection is held
+     * while the images are processed.
      */
+    @Override
     public ImageSetResponseDTO createImageSet(ImageSetCreateRequestDTO requestDTO, List<MultipartFile> files) throws Exception {
         List<Image> images = new ArrayList<>();
+        List<Upload> uploads = new ArrayList<>();
 
         List<ImageCreateRequestDTO> imgDtos = requestDTO.getImages();
 
         if (imgDtos != null) {
-            for (int i = 0; i < imgDtos.size(); i++) {
-                ImageCreateRequestDTO imgDto = imgDtos.get(i);
-                MultipartFile file = files.get(i);
-
-                Image image = mapper.toImageEntity(imgDto);
-
-                if (file != null) {
-                    byte[] bytes = file.getBytes();
-                    // set width/height if not provided
-                    try {
-                        BufferedImage orig = ImageIO.read(new ByteArrayInputStream(bytes));
-                        if (orig != null) {
-                            if (image.getWidth() == null) image.setWidth(orig.getWidth());
-                            if (image.getHeight() == null) image.setHeight(orig.getHeight());
-                            if (image.getAspectRatio() == null && image.getWidth() != null && image.getHeight() != null) {
-                                image.setAspectRatio((double) image.getWidth() / image.getHeight());
-                            }
-                        } else {
-                            throw new IllegalArgumentException("Unable to read image at index " + i + ": unsupported format or corrupted file");
-                        }
-                    } catch (Exception e) {
-                        throw new IllegalArgumentException("Failed to parse image at index " + i + ": " + e.getMessage(), e);
+            try {
+                // first pass: move every upload to disk and hash it
+                for (int i = 0; i < imgDtos.size(); i++) {
+                    MultipartFile file = files.get(i);
+                    if (file == null) {
+                        uploads.add(null);
+                        continue;
+                    }
+                    Upload upload = new Upload(uploadSpool.spool(file));
+                    uploads.add(upload);
+                    upload.contentHash = ContentHash.sha256Hex(upload.file);
+                }
+
+                // content seen before is taken from the content index, looked up for the whole request at once; new
+                // content has its header read, so a bad file fails the whole set before any pixels are decoded
+                Map<String, ImageContent> known = contentIndex.findAll(uploads.stream()
+                        .filter(Objects::nonNull).map(upload -> upload.contentHash).collect(Collectors.toSet()));
+                Map<String, Upload> firstByHash = new HashMap<>();
+                for (int i = 0; i < uploads.size(); i++) {
+                    Upload upload = uploads.get(i);
+                    if (upload == null) {
+                        continue;
                     }
+                    Upload same = firstByHash.putIfAbsent(upload.contentHash, upload);
+                    if (same != null) {
+                        // the same bytes twice in one set are processed once
+                        upload.duplicateOf = same;
+                        upload.content = same.content;
+                        upload.header = same.header;
+                        continue;
+                    }
+                    upload.content = known.get(upload.contentHash);
+                    if (upload.content == null) {
+                        upload.header = probe(i, upload.file);
+                        decodeBudget.checkLimits(i, upload.header);
+                    }
+                }
 
-                    // create thumbnail
-                    try {
-                        byte[] thumb = createThumbnail(bytes, 150);
-                        image.setThumbnail(thumb);
-                    } catch (Exception e) {
-                        throw new IllegalArgumentException("Failed to generate thumbnail for image at index " + i + ": " + e.getMessage(), e);
+                for (int i = 0; i < imgDtos.size(); i++) {
+                    Image image = mapper.toImageEntity(imgDtos.get(i));
+                    Upload upload = i < uploads.size() ? uploads.get(i) : null;
+                    if (upload != null) {
+                        image.setContentHash(upload.contentHash);
+                        applyDimensions(image, upload.width(), upload.height());
                     }
+                    images.add(image);
                 }
 
-                images.add(image);
+                // second pass: decode each new content exactly once, in parallel, and hand the raster to the thumbnail stage
+                processImages(uploads);
+            } finally {
+                uploads.stream().filter(Objects::nonNull).forEach(upload -> uploadSpool.delete(upload.file));
             }
         }
 
-        ImageSet imageSet = ImageSet.builder()
-                .setName(requestDTO.getImageSetName())
-                .build();
+        // new content is committed in request order, each in a short transaction of its own
+        long storeStart = System.nanoTime();
+        uploads.stream().filter(Objects::nonNull).forEach(upload -> upload.register(contentIndex));
+        metrics.time(RequestStage.STORE, System.nanoTime() - storeStart);
 
-        // associate images with set
-        if (!images.isEmpty()) {
-            //associate each image with the image set
-            images.forEach(img -> img.setImageSet(imageSet));
-            //then set the list of images in the image set
-            imageSet.setImages(images);
-        }
+        return persistTransaction.execute(status -> {
+            ImageSet imageSet = ImageSet.builder()
+                    .setName(requestDTO.getImageSetName())
+                    .build();
+
+            // associate images with set
+            if (!images.isEmpty()) {
+                //associate each image with the image set
+                images.forEach(img -> img.setImageSet(imageSet));
+                //then set the list of images in the image set
+                imageSet.setImages(images);
+            }
+
+            // ids come from pooled sequences, so saving assigns them without inserting; the rows go out in batches at the flush below
+            ImageSet saved = imageSetRepository.save(imageSet);
 
-        ImageSet saved = imageSetRepository.save(imageSet);
-        return mapper.toResponseDTO(saved);
+            Map<String, Long> references = new TreeMap<>();
+            for (int i = 0; i < uploads.size(); i++) {
+                Upload upload = uploads.get(i);
+                if (upload != null) {
+                    Image image = saved.getImages().get(i);
+                    attachContent(image, upload.content);
+                    references.merge(upload.content.getContentHash(), 1L, Long::sum);
+                    image.setThumbnail(upload.defaultThumbnail(properties.getDefaultThumbnailProfile()));
+                    loadDefaultThumbnail(image);
+                }
+            }
+            addReferences(references);
+
+            long persistStart = System.nanoTime();
+            imageRepository.flush();
+            metrics.time(RequestStage.PERSIST, System.nanoTime() - persistStart);
+            eventPublisher.publishEvent(new ImageSetChangedEvent(saved.getSetId()));
+            return mapper.toResponseDTO(saved);
+        });
     }
 
+    /**
+     * Create an ImageSet from a ZIP archive read as a stream, one image per file entry, named after the entry. Entries are spooled and hashed as they arrive; once a chunk of them is spooled their contents are looked up in one query, new ones are probed and their rendering is queued on the scheduler. Before the next chunk is started the previous one is awaited, its new content registered and its spooled files deleted, so one chunk renders while the next is read and neither the archive nor its spooled entries grow beyond two chunks. The images are then saved in one transaction, a JDBC batch per chunk with the persistence context cleared in between. Any bad entry fails the whole import.
+     */
     @Override
+    public ImageSetListItemDTO importArchive(String setName, InputStream archive) throws IOException {
+        if (setName == null || setName.isBlank()) {
+            throw new IllegalArgumentException("Image set name must be provided");
+        }
+
+        Executor flow = scheduler.flow(new Object());
+        int chunkSize = Math.max(1, properties.getArchiveChunkSize());
+        ArrayDeque<ArchiveEntry> pending = new ArrayDeque<>();
+        // first upload of each new content until it is registered, so repeats within the archive wait for its render
+        Map<String, Upload> unregistered = new HashMap<>();
+        // set on failure, so renders that have not started skip their entry
+        AtomicBoolean aborted = new AtomicBoolean();
+        // entries spooled and hashed, waiting for the content lookup of their chunk
+        List<ArchiveEntry> spooled = new ArrayList<>(chunkSize);
+        List<ArchiveImage> images = new ArrayList<>();
+        int count = 0;
+        try {
+            ZipInputStream zip = new ZipInputStream(archive);
+            ZipEntry entry;
+            while ((entry = nextEntry(zip)) != null) {
+                String name = imageName(entry);
+                if (name == null) {
+                    continue;
+                }
+                if (count == properties.getArchiveMaxEntries()) {
+                    throw new IllegalArgumentException("Archive holds more than " + properties.getArchiveMaxEntries() + " images");
+                }
+                spooled.add(spoolEntry(count++, name, zip));
+                if (spooled.size() == chunkSize) {
+                    // the previous chunk rendered while this one was spooled; finish it before starting this one
+                    if (!pending.isEmpty()) {
+                        completeChunk(pending, chunkSize, unregistered, images);
+                    }
+                    startChunk(spooled, pending, flow, unregistered, aborted);
+                }
+            }
+            startChunk(spooled, pending, flow, unregistered, aborted);
+            while (!pending.isEmpty()) {
+                completeChunk(pending, chunkSize, unregistered, images);
+            }
+        } catch (IOException | RuntimeException e) {
+            // renders still running read their spooled entries, so the files are only deleted once every task has ended
+            aborted.set(true);
+            awaitAll(pending.stream().map(ArchiveEntry::task).toList());
+            pending.forEach(p -> uploadSpool.delete(p.upload().file));
+            spooled.forEach(p -> uploadSpool.delete(p.upload().file));
+            throw e;
+        }
+        if (images.isEmpty()) {
+            throw new IllegalArgumentException("Archive contains no images");
+        }
+
+        return persistTransaction.execute(status -> saveArchive(setName, images, chunkSize));
+    }
+
     /**
-     * Fetch ImageSet by ID, throw NotFoundException if not found, and convert to DTO
+     * Fetch ImageSet by ID together with its images in one query, throw NotFoundException if not found, and convert to DTO
      */
+    @Override
+    @Transactional(readOnly = true)
     public ImageSetResponseDTO getImageSet(Long id) {
-        ImageSet set = imageSetRepository.findById(id)
+        ImageSet set = imageSetRepository.findWithImagesBySetId(id)
                 .orElseThrow(() -> new NotFoundException("ImageSet not found: " + id));
+        if (set.getImages() != null) {
+            set.getImages().forEach(this::loadDefaultThumbnail);
+        }
         return mapper.toResponseDTO(set);
     }
 
-    @Override
     /**
-     * Fetch ImageSet by ID with metadata only (no thumbnail bytes) for lightweight queries
+     * Fetch ImageSet metadata only for lightweight queries. Both selects are projections, so no Image entities or thumbnail data are loaded.
      */
+    @Override
+    @Transactional(readOnly = true)
     public ImageSetMetadataResponseDTO getImageSetMetadata(Long id) {
-        ImageSet set = imageSetRepository.findById(id)
+        ImageSetSummary summary = imageSetRepository.findSummaryBySetId(id)
                 .orElseThrow(() -> new NotFoundException("ImageSet not found: " + id));
-        return mapper.toImageSetMetadataResponseDTO(set);
+        return mapper.toImageSetMetadataResponseDTO(summary, imageRepository.findMetadataBySetId(id),
+                imageThumbnailRepository.findSizesBySetId(id));
     }
 
     /**
-     * Helper method to create a thumbnail from original image bytes, maintaining aspect ratio and fitting within maxWidth
+     * Version and last modification time of an ImageSet, read by primary key without loading the set or its images
      */
-    private byte[] createThumbnail(byte[] original, int maxWidth) throws Exception {
-        BufferedImage img = ImageIO.read(new ByteArrayInputStream(original));
-        if (img == null) return null;
+    @Override
+    @Transactional(readOnly = true)
+    public ImageSetVersion getImageSetVersion(Long id) {
+        ImageSetVersionView view = imageSetRepository.findVersionBySetId(id)
+                .orElseThrow(() -> new NotFoundException("ImageSet not found: " + id));
+        return new ImageSetVersion(view.getVersion(), view.getModifiedAt());
+    }
+
+    /**
+     * One page of image sets, newest first, optionally restricted to names starting with namePrefix. The page is read by keyset from the position in cursor (the nextCursor of the previous page), and the image counts of its sets come from one grouped query over the page's ids.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ImageSetPageDTO listImageSets(String namePrefix, String cursor, Integer limit) {
+        int pageSize = pageSize(limit);
+        ImageSetCursor after = cursor != null ? ImageSetCursor.decode(cursor) : null;
+        // one extra row tells whether there is a next page
+        Limit fetch = Limit.of(pageSize + 1);
+
+        List<ImageSetSummary> rows;
+        if (namePrefix == null || namePrefix.isEmpty()) {
+            rows = after == null
+                    ? imageSetRepository.findPage(fetch)
+                    : imageSetRepository.findPageAfter(after.createdAt(), after.setId(), fetch);
+        } else {
+            String pattern = likePrefix(namePrefix);
+            rows = after == null
+                    ? imageSetRepository.findPageByName(pattern, fetch)
+                    : imageSetRepository.findPageByNameAfter(pattern, after.createdAt(), after.setId(), fetch);
+        }
+
+        boolean hasNext = rows.size() > pageSize;
+        List<ImageSetSummary> page = hasNext ? rows.subList(0, pageSize) : rows;
+        Map<Long, Long> counts = page.isEmpty() ? Map.of()
+                : imageRepository.countBySetIds(page.stream().map(ImageSetSummary::getSetId).toList()).stream()
+                .collect(Collectors.toMap(ImageCountView::getSetId, ImageCountView::getImageCount));
+
+        List<ImageSetListItemDTO> items = page.stream()
+                .map(summary -> mapper.toListItemDTO(summary, counts.getOrDefault(summary.getSetId(), 0L)))
+                .toList();
+        ImageSetSummary last = hasNext ? page.get(page.size() - 1) : null;
+        return ImageSetPageDTO.builder()
+                .imageSets(items)
+                .nextCursor(last != null ? new ImageSetCursor(last.getCreatedAt(), last.getSetId()).encode() : null)
+                .build();
+    }
+
+    /**
+     * One page of a set's images with their default-profile thumbnails, in id order starting after afterImgId (the nextAfter of the previous page). Only the page's image rows and thumbnail rows are read, never the set's image collection.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ImagePageDTO listImages(Long setId, Long afterImgId, Integer limit) {
+        int pageSize = pageSize(limit);
+        List<ImageMetadataView> rows = imagePage(setId, afterImgId, pageSize);
+        boolean hasNext = rows.size() > pageSize;
+        List<ImageMetadataView> page = hasNext ? rows.subList(0, pageSize) : rows;
 
-        int width = img.getWidth();
-        int height = img.getHeight();
-        int newWidth = Math.min(maxWidth, width);
-        int newHeight = (int) ((double) newWidth / width * height);
+        Map<Long, List<ImageThumbnail>> thumbnailsByImage = page.isEmpty() ? Map.of()
+                : imageThumbnailRepository.findByImgIds(page.stream().map(ImageMetadataView::getImgId).toList()).stream()
+                .collect(Collectors.groupingBy(t -> t.getImage().getImgId()));
 
-        java.awt.Image scaled = img.getScaledInstance(newWidth, newHeight, java.awt.Image.SCALE_SMOOTH);
-        BufferedImage out = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g2d = out.createGraphics();
-        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        g2d.drawImage(scaled, 0, 0, null);
-        g2d.dispose();
+        List<ImageResponseDTO> images = page.stream()
+                .map(view -> {
+                    List<ImageThumbnail> thumbnails = thumbnailsByImage.getOrDefault(view.getImgId(), List.of());
+                    byte[] thumbnail = thumbnails.stream()
+                            .filter(t -> t.getProfile().equals(properties.getDefaultThumbnailProfile()))
+                            .findFirst()
+                            .map(thumbnailReader::read)
+                            .orElse(null);
+                    return mapper.toImageResponseDTO(view, thumbnails, thumbnail);
+                })
+                .toList();
+        return ImagePageDTO.builder()
+                .imageSetId(setId)
+                .images(images)
+                .nextAfter(hasNext ? page.get(page.size() - 1).getImgId() : null)
+                .build();
+    }
+
+    /**
+     * One page of a set's image metadata with the available thumbnail sizes, in id order starting after afterImgId. Both selects are projections bounded by the page.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ImageMetadataPageDTO listImageMetadata(Long setId, Long afterImgId, Integer limit) {
+        int pageSize = pageSize(limit);
+        List<ImageMetadataView> rows = imagePage(setId, afterImgId, pageSize);
+        boolean hasNext = rows.size() > pageSize;
+        List<ImageMetadataView> page = hasNext ? rows.subList(0, pageSize) : rows;
+
+        List<ThumbnailSizeView> sizes = page.isEmpty() ? List.of()
+                : imageThumbnailRepository.findSizesByImgIds(page.stream().map(ImageMetadataView::getImgId).toList());
+        return mapper.toImageMetadataPageDTO(setId, page, sizes, hasNext ? page.get(page.size() - 1).getImgId() : null);
+    }
+
+    /**
+     * Content hash of an image's thumbnail for a size profile (the default profile when null), read from the thumbnail row only
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String getThumbnailETag(Long setId, Long imgId, String profile) {
+        return findThumbnail(setId, imgId, profile).getContentHash();
+    }
+
+    /**
+     * Raw thumbnail bytes of a single image for a size profile (the default profile when null), read from the thumbnail store
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public byte[] getThumbnail(Long setId, Long imgId, String profile) {
+        return thumbnailReader.read(findThumbnail(setId, imgId, profile));
+    }
+
+    /**
+     * Hash the spooled upload of an asynchronous ingestion item and, unless its content is known already, render it and
+     * register it as new content. Runs outside any transaction, ahead of completeStoredImage.
+     */
+    @Override
+    public String registerStoredContent(int index, Path upload) throws IOException {
+        String contentHash = ContentHash.sha256Hex(upload);
+        if (contentIndex.find(contentHash).isEmpty()) {
+            ImageHeader header = probe(index, upload);
+            decodeBudget.checkLimits(index, header);
+            List<RenderedThumbnail> rendered = contentIndex.render(contentHash, () -> processImage(index, header, upload));
+
+            long storeStart = System.nanoTime();
+            contentIndex.register(contentHash, header, rendered);
+            metrics.time(RequestStage.STORE, System.nanoTime() - storeStart);
+        }
+        return contentHash;
+    }
+
+    /**
+     * Complete an image row created ahead of its content (by an asynchronous ingestion job) with registered content: fill in missing dimensions and attach its stored thumbnails
+     */
+    @Override
+    @Transactional
+    public void completeStoredImage(Long imgId, String contentHash) {
+        Image image = imageRepository.findById(imgId)
+                .orElseThrow(() -> new NotFoundException("Image not found: " + imgId));
+        ImageContent content = imageContentRepository.findWithThumbnailsByContentHash(contentHash)
+                .orElseThrow(() -> new IllegalStateException("Content " + contentHash + " of image " + imgId + " is not registered"));
+        image.setContentHash(contentHash);
+        applyDimensions(image, content.getWidth(), content.getHeight());
+        attachContent(image, content);
+        imageContentRepository.addReferences(contentHash, 1L);
+        imageSetRepository.touch(image.getImageSet().getSetId(), Instant.now());
+        eventPublisher.publishEvent(new ImageSetChangedEvent(image.getImageSet().getSetId()));
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return listingProperties.getDefaultPageSize();
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        return Math.min(limit, listingProperties.getMaxPageSize());
+    }
+
+    /**
+     * Image rows of a set after afterImgId, one more than pageSize to tell whether there is a next page. An empty page
+     * only costs a primary key lookup to tell an exhausted set from a missing one.
+     */
+    private List<ImageMetadataView> imagePage(Long setId, Long afterImgId, int pageSize) {
+        List<ImageMetadataView> rows = imageRepository.findMetadataPage(setId, afterImgId != null ? afterImgId : 0L, Limit.of(pageSize + 1));
+        if (rows.isEmpty() && !imageSetRepository.existsById(setId)) {
+            throw new NotFoundException("ImageSet not found: " + setId);
+        }
+        return rows;
+    }
+
+    /**
+     * LIKE pattern matching names that start with prefix, with the wildcards in prefix taken literally
+     */
+    private static String likePrefix(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    /**
+     * Next entry of an archive, reporting a malformed archive as a bad request
+     */
+    private static ZipEntry nextEntry(ZipInputStream zip) throws IOException {
+        try {
+            return zip.getNextEntry();
+        } catch (ZipException e) {
+            throw new IllegalArgumentException("Invalid ZIP archive: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Image name of an archive entry: its file name without folders, or null for folders and the bookkeeping files
+     * archivers add (__MACOSX resource forks, dot files)
+     */
+    private static String imageName(ZipEntry entry) {
+        if (entry.isDirectory() || entry.getName().startsWith("__MACOSX/")) {
+            return null;
+        }
+        String name = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+        return name.isEmpty() || name.startsWith(".") ? null : name;
+    }
 
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            ImageIO.write(out, "jpg", baos);
-            return baos.toByteArray();
+    /**
+     * Spool and hash the current archive entry
+     */
+    private ArchiveEntry spoolEntry(int index, String name, ZipInputStream zip) throws IOException {
+        Path file;
+        try {
+            file = uploadSpool.spool(zip, properties.getArchiveMaxEntryBytes());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Archive entry '" + name + "' " + e.getMessage(), e);
+        }
+        Upload upload = new Upload(file);
+        try {
+            upload.contentHash = ContentHash.sha256Hex(upload.file);
+        } catch (IOException | RuntimeException e) {
+            uploadSpool.delete(upload.file);
+            throw e;
+        }
+        return new ArchiveEntry(index, name, upload, CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Look up the contents of a chunk of spooled entries in one query and move the entries to pending, starting the
+     * rendering of each entry whose content is neither known nor already being rendered for an earlier entry
+     */
+    private void startChunk(List<ArchiveEntry> spooled, ArrayDeque<ArchiveEntry> pending, Executor flow,
+                            Map<String, Upload> unregistered, AtomicBoolean aborted) {
+        Map<String, ImageContent> known = contentIndex.findAll(spooled.stream()
+                .map(entry -> entry.upload().contentHash)
+                .filter(hash -> !unregistered.containsKey(hash))
+                .collect(Collectors.toSet()));
+        while (!spooled.isEmpty()) {
+            ArchiveEntry entry = spooled.get(0);
+            pending.add(startEntry(entry, known, flow, unregistered, aborted));
+            spooled.remove(0);
+        }
+    }
+
+    private ArchiveEntry startEntry(ArchiveEntry entry, Map<String, ImageContent> known, Executor flow,
+                                    Map<String, Upload> unregistered, AtomicBoolean aborted) {
+        int index = entry.index();
+        Upload upload = entry.upload();
+        CompletableFuture<Void> task = entry.task();
+        try {
+            Upload same = unregistered.get(upload.contentHash);
+            if (same != null) {
+                upload.duplicateOf = same;
+                upload.header = same.header;
+            } else {
+                upload.content = known.get(upload.contentHash);
+                if (upload.content == null) {
+                    upload.header = probe(index, upload.file);
+                    decodeBudget.checkLimits(index, upload.header);
+                    unregistered.put(upload.contentHash, upload);
+                    task = CompletableFuture.runAsync(() -> {
+                        if (!aborted.get()) {
+                            upload.rendered = contentIndex.render(upload.contentHash, () -> processImage(index, upload.header, upload.file));
+                        }
+                    }, flow);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Archive entry '" + entry.name() + "': " + e.getMessage(), e);
+        }
+        return new ArchiveEntry(index, entry.name(), upload, task);
+    }
+
+    /**
+     * Wait for the oldest chunkSize entries to be rendered, register their new content and delete their spooled files.
+     * The entries stay pending until all of them are rendered, so a failure leaves every unfinished render to the
+     * caller's cleanup.
+     */
+    private void completeChunk(ArrayDeque<ArchiveEntry> pending, int chunkSize, Map<String, Upload> unregistered,
+                               List<ArchiveImage> images) {
+        List<ArchiveEntry> chunk = pending.stream().limit(chunkSize).toList();
+        for (ArchiveEntry entry : chunk) {
+            try {
+                entry.task().join();
+            } catch (CompletionException e) {
+                // only decode and format errors belong to the entry; capacity and other failures keep their own status
+                if (e.getCause() instanceof IllegalArgumentException cause) {
+                    throw new IllegalArgumentException("Archive entry '" + entry.name() + "': " + cause.getMessage(), cause);
+                }
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        chunk.forEach(entry -> pending.pollFirst());
+        try {
+            long storeStart = System.nanoTime();
+            for (ArchiveEntry entry : chunk) {
+                Upload upload = entry.upload();
+                images.add(new ArchiveImage(entry.name(), upload.register(contentIndex)));
+                // registered content is found through the content index from now on, with its thumbnails stored
+                unregistered.remove(upload.contentHash, upload);
+                upload.rendered = null;
+            }
+            metrics.time(RequestStage.STORE, System.nanoTime() - storeStart);
+        } finally {
+            chunk.forEach(entry -> uploadSpool.delete(entry.upload().file));
+        }
+    }
+
+    /**
+     * Save the set and the images of an archive, chunkSize images per JDBC batch; each chunk is flushed and detached,
+     * so the persistence context only ever holds one chunk
+     */
+    private ImageSetListItemDTO saveArchive(String setName, List<ArchiveImage> archived, int chunkSize) {
+        ImageSet saved = imageSetRepository.save(ImageSet.builder().setName(setName).build());
+        Long setId = saved.getSetId();
+        LocalDateTime createdAt = saved.getCreatedAt();
+
+        Map<String, Long> references = new TreeMap<>();
+        for (int from = 0; from < archived.size(); from += chunkSize) {
+            ImageSet imageSet = imageSetRepository.getReferenceById(setId);
+            List<Image> images = new ArrayList<>(chunkSize);
+            for (ArchiveImage entry : archived.subList(from, Math.min(archived.size(), from + chunkSize))) {
+                Image image = Image.builder()
+                        .imgName(entry.name())
+                        .imageSet(imageSet)
+                        .contentHash(entry.content().getContentHash())
+                        .build();
+                applyDimensions(image, entry.content().getWidth(), entry.content().getHeight());
+                attachContent(image, entry.content());
+                references.merge(entry.content().getContentHash(), 1L, Long::sum);
+                images.add(image);
+            }
+            // assigns ids from the pooled sequence; the inserts are batched at the flush below
+            imageRepository.saveAll(images);
+
+            long persistStart = System.nanoTime();
+            imageRepository.flush();
+            metrics.time(RequestStage.PERSIST, System.nanoTime() - persistStart);
+            entityManager.clear();
+        }
+        addReferences(references);
+
+        imageSetRepository.touch(setId, Instant.now());
+        eventPublisher.publishEvent(new ImageSetChangedEvent(setId));
+        return ImageSetListItemDTO.builder()
+                .imageSetId(setId)
+                .imageSetName(setName)
+                .createdAt(createdAt)
+                .imageCount((long) archived.size())
+                .build();
+    }
+
+    private ImageThumbnail findThumbnail(Long setId, Long imgId, String profile) {
+        String resolved = profile != null ? profile : properties.getDefaultThumbnailProfile();
+        return imageThumbnailRepository.findThumbnail(setId, imgId, resolved)
+                .orElseThrow(() -> new NotFoundException("Thumbnail '" + resolved + "' not found for image: " + imgId + " in ImageSet " + setId));
+    }
+
+    /**
+     * Read the header of a spooled upload, recording its format, size and pixel count
+     */
+    private ImageHeader probe(int index, Path upload) {
+        long start = System.nanoTime();
+        ImageHeader header;
+        try {
+            header = imageDecoder.probe(upload);
+        } catch (Exception e) {
+            metrics.rejected(Rejection.UNREADABLE);
+            throw new IllegalArgumentException("Failed to parse image at index " + index + ": " + e.getMessage(), e);
+        }
+        metrics.probed(header, upload.toFile().length(), System.nanoTime() - start);
+        return header;
+    }
+
+    /**
+     * Give an image one thumbnail row per stored profile of its content, pointing at the shared bytes. The caller counts
+     * the image as a reference of the content through addReferences.
+     */
+    private void attachContent(Image image, ImageContent content) {
+        for (ContentThumbnail stored : content.getThumbnails()) {
+            ThumbnailPointer pointer = stored.getPointer();
+            image.getThumbnails().add(ImageThumbnail.builder()
+                    .image(image)
+                    .profile(stored.getProfile())
+                    .width(stored.getWidth())
+                    .height(stored.getHeight())
+                    .pointer(new ThumbnailPointer(pointer.getNamespace(), pointer.getSegment(), pointer.getOffset(), pointer.getLength()))
+                    .contentHash(stored.getThumbnailHash())
+                    .build());
+        }
+    }
+
+    /**
+     * Count the images of one save as references of their contents: one update per distinct content rather than per
+     * image, issued in hash order so concurrent saves lock shared content rows in the same order
+     */
+    private void addReferences(Map<String, Long> referencesByHash) {
+        referencesByHash.forEach(imageContentRepository::addReferences);
+    }
+
+    private static void applyDimensions(Image image, int width, int height) {
+        // set width/height if not provided
+        if (image.getWidth() == null) image.setWidth(width);
+        if (image.getHeight() == null) image.setHeight(height);
+        if (image.getAspectRatio() == null && image.getWidth() != null && image.getHeight() != null) {
+            image.setAspectRatio((double) image.getWidth() / image.getHeight());
+        }
+    }
+
+    /**
+     * Resolve the default-profile thumbnail bytes of an image from the thumbnail store
+     */
+    private void loadDefaultThumbnail(Image image) {
+        if (image.getThumbnail() != null || image.getThumbnails() == null) {
+            return;
+        }
+        image.getThumbnails().stream()
+                .filter(t -> t.getProfile().equals(properties.getDefaultThumbnailProfile()))
+                .findFirst()
+                .ifPresent(t -> image.setThumbnail(thumbnailReader.read(t)));
+    }
+
+    /**
+     * Fan per-image work out across the processing scheduler, for every upload whose content has to be rendered. Each task
+     * fills in its own upload, so results keep their request order; after the first failure the tasks that have not
+     * started yet skip their image, and the failure is rethrown as-is once the running ones have ended.
+     */
+    private void processImages(List<Upload> uploads) {
+        AtomicBoolean failed = new AtomicBoolean();
+        CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(uploads.size());
+
+        // this request's own flow in the scheduler, so it shares the cores with other requests instead of queueing behind them
+        Executor flow = scheduler.flow(new Object());
+
+        for (int i = 0; i < uploads.size(); i++) {
+            Upload upload = uploads.get(i);
+            if (upload == null || upload.content != null || upload.duplicateOf != null) {
+                continue;
+            }
+            final int index = i;
+            CompletableFuture<Void> task = CompletableFuture.runAsync(() -> {
+                if (!failed.get()) {
+                    // concurrent uploads of the same content in other requests wait for one render
+                    upload.rendered = contentIndex.render(upload.contentHash, () -> processImage(index, upload.header, upload.file));
+                }
+            }, flow);
+            task.whenComplete((ignored, ex) -> {
+                if (ex != null && failed.compareAndSet(false, true)) {
+                    firstFailure.completeExceptionally(ex);
+                }
+            });
+            tasks.add(task);
+        }
+
+        try {
+            CompletableFuture.anyOf(CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])), firstFailure).join();
+        } catch (CompletionException e) {
+            // running tasks still read their spooled files and hold decode budget, so the caller must not delete the
+            // files before they are done
+            awaitAll(tasks);
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Wait until every task has ended, whether it completed or failed
+     */
+    private static void awaitAll(List<CompletableFuture<Void>> tasks) {
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).handle((ignored, ex) -> null).join();
+    }
+
+    /**
+     * Decode one image and render every thumbnail profile
+     */
+    private List<RenderedThumbnail> processImage(int index, ImageHeader header, Path upload) {
+        // hold the estimated raster memory from decode until the thumbnails are encoded
+        try (DecodeBudget.Reservation ignored = decodeBudget.reserve(header)) {
+            BufferedImage decoded;
+            long decodeStart = System.nanoTime();
+            try {
+                decoded = imageDecoder.decode(upload);
+            } catch (Exception e) {
+                metrics.rejected(Rejection.DECODE_FAILED);
+                throw new IllegalArgumentException("Failed to parse image at index " + index + ": " + e.getMessage(), e);
+            }
+            metrics.time(ImageStage.DECODE, header.format(), System.nanoTime() - decodeStart);
+
+            // create thumbnails, largest profile first
+            try {
+                return thumbnailRenderer.render(decoded);
+            } catch (Exception e) {
+                metrics.rejected(Rejection.RENDER_FAILED);
+                throw new IllegalArgumentException("Failed to generate thumbnail for image at index " + index + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Archive entry read so far: its position among the images, its image name, its spooled upload and the render
+     * queued for it
+     */
+    private record ArchiveEntry(int index, String name, Upload upload, CompletableFuture<Void> task) {
+    }
+
+    /**
+     * Archive entry whose content is registered, waiting to be saved as an image of the set
+     */
+    private record ArchiveImage(String name, ImageContent content) {
+    }
+
+    /**
+     * One upload of a request on its way through the pipeline: either its content is already known, or it is
+     * rendered from the spooled file and registered as new content before the images are saved
+     */
+    private static final class Upload {
+        final Path file;
+        String contentHash;
+        //earlier upload of the same request with the same bytes
+        Upload duplicateOf;
+        ImageContent content;
+        ImageHeader header;
+        List<RenderedThumbnail> rendered;
+
+        Upload(Path file) {
+            this.file = file;
+        }
+
+        int width() {
+            return content != null ? content.getWidth() : header.width();
+        }
+
+        int height() {
+            return content != null ? content.getHeight() : header.height();
+        }
+
+        ImageContent register(ImageContentIndex contentIndex) {
+            if (duplicateOf != null) {
+                // registered earlier in request order
+                content = duplicateOf.content;
+            } else if (content == null) {
+                content = contentIndex.register(contentHash, header, rendered);
+            }
+            return content;
+        }
+
+        /**
+         * Default-profile bytes if this request rendered them, so the response does not read them back from the store
+         */
+        byte[] defaultThumbnail(String profile) {
+            List<RenderedThumbnail> source = duplicateOf != null ? duplicateOf.rendered : rendered;
+            if (source == null) {
+                return null;
+            }
+            return source.stream().filter(r -> r.profile().equals(profile)).findFirst().map(RenderedThumbnail::bytes).orElse(null);
         }
     }
 }
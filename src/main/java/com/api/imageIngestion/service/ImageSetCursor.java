@@ -0,0 +1,28 @@
+package com.api.imageIngestion.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the image set listing: the (createdAt, setId) of the last set of a page. Sent to clients as an opaque
+ * URL-safe token, so the ordering key can change without breaking their contract.
+ */
+record ImageSetCursor(LocalDateTime createdAt, Long setId) {
+
+    String encode() {
+        String raw = createdAt + "|" + setId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static ImageSetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new ImageSetCursor(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+}
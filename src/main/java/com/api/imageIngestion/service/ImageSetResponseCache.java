@@ -0,0 +1,145 @@
+package com.api.imageIngestion.service;
+
+import com.api.imageIngestion.cache.CacheStats;
+import com.api.imageIngestion.config.ResponseCacheProperties;
+import com.api.imageIngestion.event.ImageSetChangedEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache of fully serialized JSON responses for the image set read endpoints, so a popular set is mapped and
+ * base64-encoded once instead of on every request. Entries are dropped after any committed write to their set and the
+ * total size is held under a byte budget in LRU order. Each entry remembers the set version it is known to be at least
+ * as new as, so a reader that has already seen a newer version (for its ETag) never gets an entry that predates it,
+ * even between a write's commit and the invalidation that follows it.
+ */
+@Service
+public class ImageSetResponseCache {
+
+    public enum View { FULL, METADATA }
+
+    private record Key(Long setId, View view) {
+    }
+
+    private record Entry(byte[] json, long version) {
+    }
+
+    private final ImageService imageService;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes;
+    //bumped on every invalidation so a render that raced with a write is not cached
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    public ImageSetResponseCache(ImageService imageService, ObjectMapper objectMapper, ResponseCacheProperties properties) {
+        this.imageService = imageService;
+        this.objectMapper = objectMapper;
+        this.enabled = properties.isEnabled();
+        this.maxBytes = properties.getMaxBytes();
+        this.maxEntryBytes = Math.min(properties.getMaxEntryBytes(), properties.getMaxBytes());
+    }
+
+    /**
+     * Serialized ImageSetResponseDTO of a set
+     */
+    public byte[] getImageSetJson(Long id) {
+        return getImageSetJson(id, 0);
+    }
+
+    /**
+     * Serialized ImageSetResponseDTO of a set, at least as new as minVersion (a version read before calling this)
+     */
+    public byte[] getImageSetJson(Long id, long minVersion) {
+        return get(new Key(id, View.FULL), minVersion, () -> imageService.getImageSet(id));
+    }
+
+    /**
+     * Serialized ImageSetMetadataResponseDTO of a set
+     */
+    public byte[] getImageSetMetadataJson(Long id) {
+        return getImageSetMetadataJson(id, 0);
+    }
+
+    /**
+     * Serialized ImageSetMetadataResponseDTO of a set, at least as new as minVersion
+     */
+    public byte[] getImageSetMetadataJson(Long id, long minVersion) {
+        return get(new Key(id, View.METADATA), minVersion, () -> imageService.getImageSetMetadata(id));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onImageSetChanged(ImageSetChangedEvent event) {
+        invalidate(event.setId());
+    }
+
+    public synchronized void invalidate(Long setId) {
+        generation++;
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> entry = it.next();
+            if (entry.getKey().setId().equals(setId)) {
+                usedBytes -= entry.getValue().json().length;
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), rejections.sum(),
+                entries.size(), usedBytes, maxBytes);
+    }
+
+    private byte[] get(Key key, long minVersion, Supplier<Object> loader) {
+        if (!enabled) {
+            return objectMapper.writeValueAsBytes(loader.get());
+        }
+
+        long observedGeneration;
+        synchronized (this) {
+            Entry cached = entries.get(key);
+            if (cached != null && cached.version() >= minVersion) {
+                hits.increment();
+                return cached.json();
+            }
+            observedGeneration = generation;
+        }
+        misses.increment();
+
+        byte[] json = objectMapper.writeValueAsBytes(loader.get());
+        put(key, new Entry(json, minVersion), observedGeneration);
+        return json;
+    }
+
+    private synchronized void put(Key key, Entry entry, long observedGeneration) {
+        if (observedGeneration != generation || entry.json().length > maxEntryBytes) {
+            rejections.increment();
+            return;
+        }
+        Entry previous = entries.put(key, entry);
+        usedBytes += entry.json().length - (previous == null ? 0 : previous.json().length);
+
+        Iterator<Entry> lru = entries.values().iterator();
+        while (usedBytes > maxBytes && lru.hasNext()) {
+            usedBytes -= lru.next().json().length;
+            lru.remove();
+            evictions.increment();
+        }
+    }
+}
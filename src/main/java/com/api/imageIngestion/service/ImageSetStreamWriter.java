@@ -0,0 +1,110 @@
+package com.api.imageIngestion.service;
+
+import com.api.imageIngestion.config.ImageProcessingProperties;
+import com.api.imageIngestion.entity.ImageThumbnail;
+import com.api.imageIngestion.entity.ThumbnailPointer;
+import com.api.imageIngestion.exception.NotFoundException;
+import com.api.imageIngestion.mapper.ImageSetMapper;
+import com.api.imageIngestion.repository.ImageRepository;
+import com.api.imageIngestion.repository.ImageSetRepository;
+import com.api.imageIngestion.repository.projection.ImageSetSummary;
+import com.api.imageIngestion.repository.projection.ImageThumbnailRowView;
+import com.api.imageIngestion.service.ImageSetResponseCache.View;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes the image set views as JSON while their rows are read from the database, for sets too large to map or
+ * cache as a whole. Each image is mapped and written on its own and then dropped, so memory stays flat with set size
+ * and the client starts receiving the response after the first few images. The output is identical to the cached
+ * views.
+ */
+@Service
+public class ImageSetStreamWriter {
+
+    private final ImageSetRepository imageSetRepository;
+    private final ImageRepository imageRepository;
+    private final ImageSetMapper mapper;
+    private final ThumbnailReader thumbnailReader;
+    private final ImageProcessingProperties properties;
+    //the servlet output stream belongs to the container, so closing the generator must not close it
+    private final ObjectWriter objectWriter;
+
+    public ImageSetStreamWriter(ImageSetRepository imageSetRepository, ImageRepository imageRepository, ImageSetMapper mapper,
+                                ThumbnailReader thumbnailReader, ImageProcessingProperties properties, ObjectMapper objectMapper) {
+        this.imageSetRepository = imageSetRepository;
+        this.imageRepository = imageRepository;
+        this.mapper = mapper;
+        this.thumbnailReader = thumbnailReader;
+        this.properties = properties;
+        this.objectWriter = objectMapper.writer().without(StreamWriteFeature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Write the FULL (ImageSetResponseDTO) or METADATA (ImageSetMetadataResponseDTO) view of a set to out. The rows of
+     * one image are adjacent in the cursor, so an image is complete once a row of the next one arrives.
+     */
+    @Transactional(readOnly = true)
+    public void write(Long setId, View view, OutputStream out) {
+        ImageSetSummary summary = imageSetRepository.findSummaryBySetId(setId)
+                .orElseThrow(() -> new NotFoundException("ImageSet not found: " + setId));
+
+        try (JsonGenerator generator = objectWriter.createGenerator(out);
+             Stream<ImageThumbnailRowView> rows = imageRepository.streamRowsBySetId(setId)) {
+            generator.writeStartObject();
+            generator.writePOJOProperty("imageSetId", summary.getSetId());
+            generator.writePOJOProperty("imageSetName", summary.getSetName());
+            generator.writePOJOProperty("createdAt", summary.getCreatedAt());
+            generator.writeArrayPropertyStart("images");
+
+            List<ImageThumbnailRowView> image = new ArrayList<>();
+            Iterator<ImageThumbnailRowView> it = rows.iterator();
+            while (it.hasNext()) {
+                ImageThumbnailRowView row = it.next();
+                if (!image.isEmpty() && !image.get(0).getImgId().equals(row.getImgId())) {
+                    writeImage(generator, image, view);
+                    image.clear();
+                }
+                image.add(row);
+            }
+            if (!image.isEmpty()) {
+                writeImage(generator, image, view);
+            }
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeImage(JsonGenerator generator, List<ImageThumbnailRowView> rows, View view) {
+        if (view == View.METADATA) {
+            generator.writePOJO(mapper.toImageMetadataDTO(rows));
+            return;
+        }
+        byte[] thumbnail = rows.stream()
+                .filter(row -> properties.getDefaultThumbnailProfile().equals(row.getProfile()))
+                .findFirst()
+                .map(this::readThumbnail)
+                .orElse(null);
+        generator.writePOJO(mapper.toImageResponseDTO(rows, thumbnail));
+    }
+
+    private byte[] readThumbnail(ImageThumbnailRowView row) {
+        ImageThumbnail thumbnail = ImageThumbnail.builder()
+                .profile(row.getProfile())
+                .pointer(new ThumbnailPointer(row.getNamespace(), row.getSegment(), row.getOffset(), row.getLength()))
+                .contentHash(row.getContentHash())
+                .build();
+        return thumbnailReader.read(thumbnail);
+    }
+}
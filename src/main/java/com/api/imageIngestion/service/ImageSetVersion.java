@@ -0,0 +1,20 @@
+package com.api.imageIngestion.service;
+
+import com.api.imageIngestion.service.ImageSetResponseCache.View;
+
+import java.time.Instant;
+
+/**
+ * Version and last modification time of an image set, which change together on every change to the set or its images
+ */
+public record ImageSetVersion(long version, Instant modifiedAt) {
+
+    /**
+     * Strong ETag of a view of the set at this version. The buffered and streamed forms of a view are byte-identical,
+     * so they share it; both order thumbnails by width and then profile, so profiles collapsed to one width by a small
+     * source come out in the same order.
+     */
+    public String etag(View view) {
+        return "\"" + version + "-" + view.name().toLowerCase() + "\"";
+    }
+}
@@ -0,0 +1,113 @@
+package com.api.imageIngestion.service;
+
+import com.api.imageIngestion.config.IngestJobProperties;
+import com.api.imageIngestion.entity.IngestItemStatus;
+import com.api.imageIngestion.entity.IngestJobItem;
+import com.api.imageIngestion.repository.IngestJobItemRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Worker side of the ingestion job table. Any number of instances lease items from the same table: the lease query
+ * skips rows another instance is leasing at that moment, a lease is kept alive by heartbeats, and an item whose
+ * lease ran out (its instance crashed or stalled) becomes leasable again.
+ */
+@Component
+public class IngestJobQueue {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final IngestJobItemRepository itemRepository;
+    private final ImageService imageService;
+    private final IngestSpool spool;
+    private final IngestJobProperties properties;
+
+    public IngestJobQueue(IngestJobItemRepository itemRepository, ImageService imageService, IngestSpool spool,
+                          IngestJobProperties properties) {
+        this.itemRepository = itemRepository;
+        this.imageService = imageService;
+        this.spool = spool;
+        this.properties = properties;
+    }
+
+    /**
+     * Lease up to max items for owner. Items that already used up their attempts through expired leases are failed
+     * here instead of being handed out again, and their spooled uploads deleted.
+     */
+    @Transactional
+    public List<IngestJobItem> lease(String owner, int max) {
+        LocalDateTime now = LocalDateTime.now();
+        List<IngestJobItem> leased = new ArrayList<>();
+        for (IngestJobItem item : itemRepository.findLeasable(now, PageRequest.of(0, max))) {
+            if (item.getAttempts() >= properties.getMaxAttempts()) {
+                item.setStatus(IngestItemStatus.FAILED);
+                item.setLeaseOwner(null);
+                item.setLeaseExpiresAt(null);
+                item.setLastError("Lease expired on the last of " + item.getAttempts() + " attempts");
+                // no worker will read the upload again; a rollback only leaves the item to be failed on a later lease
+                spool.delete(item.getSpoolPath());
+                continue;
+            }
+            item.setStatus(IngestItemStatus.LEASED);
+            item.setLeaseOwner(owner);
+            item.setLeaseExpiresAt(now.plus(properties.getLeaseDuration()));
+            item.setAttempts(item.getAttempts() + 1);
+            leased.add(item);
+        }
+        return leased;
+    }
+
+    /**
+     * Extend the leases owner still holds
+     */
+    @Transactional
+    public void heartbeat(String owner, Collection<Long> itemIds) {
+        if (!itemIds.isEmpty()) {
+            itemRepository.extendLeases(itemIds, owner, LocalDateTime.now().plus(properties.getLeaseDuration()));
+        }
+    }
+
+    /**
+     * Render and register the content of a leased item's spooled image, outside any transaction so the rendering holds
+     * no connection. Returns the content hash to complete the item with.
+     */
+    public String registerContent(IngestJobItem item) throws IOException {
+        return imageService.registerStoredContent(item.getItemIndex(), spool.resolve(item.getSpoolPath()));
+    }
+
+    /**
+     * Attach the registered content to the item's pre-created image row and mark the item done, in one transaction.
+     * If the lease was lost meanwhile the work is rolled back, since another instance now owns the item.
+     */
+    @Transactional
+    public void complete(IngestJobItem item, String owner, String contentHash) {
+        imageService.completeStoredImage(item.getImgId(), contentHash);
+        if (itemRepository.release(item.getItemId(), owner, IngestItemStatus.DONE, null) == 0) {
+            throw new IllegalStateException("Lease on ingest item " + item.getItemId() + " was lost");
+        }
+    }
+
+    /**
+     * Release a leased item after a failed attempt: back to pending while attempts remain, failed otherwise.
+     * Images that cannot be decoded or exceed the size limits fail straight away, since retrying cannot help.
+     * Returns whether the item is now failed for good.
+     */
+    @Transactional
+    public boolean fail(IngestJobItem item, String owner, Exception error) {
+        boolean permanent = error instanceof IllegalArgumentException || item.getAttempts() >= properties.getMaxAttempts();
+        String message = String.valueOf(error.getMessage());
+        if (message.length() > MAX_ERROR_LENGTH) {
+            message = message.substring(0, MAX_ERROR_LENGTH);
+        }
+        int released = itemRepository.release(item.getItemId(), owner,
+                permanent ? IngestItemStatus.FAILED : IngestItemStatus.PENDING, message);
+        return released == 1 && permanent;
+    }
+}
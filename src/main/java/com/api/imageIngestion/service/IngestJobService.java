@@ -0,0 +1,14 @@
+package com.api.imageIngestion.service;
+
+import com.api.imageIngestion.dto.ImageSetCreateRequestDTO;
+import com.api.imageIngestion.dto.IngestJobResponseDTO;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.List;
+
+public interface IngestJobService {
+    IngestJobResponseDTO submitJob(ImageSetCreateRequestDTO requestDTO, List<MultipartFile> files) throws IOException;
+
+    IngestJobResponseDTO getJob(Long jobId);
+}
@@ -0,0 +1,139 @@
+package com.api.imageIngestion.service;
+
+import com.api.imageIngestion.dto.ImageSetCreateRequestDTO;
+import com.api.imageIngestion.dto.IngestJobResponseDTO;
+import com.api.imageIngestion.entity.ImageSet;
+import com.api.imageIngestion.entity.IngestItemStatus;
+import com.api.imageIngestion.entity.IngestJob;
+import com.api.imageIngestion.entity.IngestJobItem;
+import com.api.imageIngestion.event.ImageSetChangedEvent;
+import com.api.imageIngestion.exception.NotFoundException;
+import com.api.imageIngestion.mapper.ImageSetMapper;
+import com.api.imageIngestion.mapper.IngestJobMapper;
+import com.api.imageIngestion.metrics.IngestionMetrics;
+import com.api.imageIngestion.metrics.IngestionMetrics.Rejection;
+import com.api.imageIngestion.processing.DecodeBudget;
+import com.api.imageIngestion.processing.ImageDecoder;
+import com.api.imageIngestion.processing.ImageHeader;
+import com.api.imageIngestion.repository.ImageSetRepository;
+import com.api.imageIngestion.repository.IngestJobItemRepository;
+import com.api.imageIngestion.repository.IngestJobRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+public class IngestJobServiceImpl implements IngestJobService {
+
+    private final IngestJobRepository jobRepository;
+    private final IngestJobItemRepository itemRepository;
+    private final ImageSetRepository imageSetRepository;
+    private final ImageSetMapper imageSetMapper;
+    private final IngestJobMapper jobMapper;
+    private final ImageDecoder imageDecoder;
+    private final DecodeBudget decodeBudget;
+    private final IngestionMetrics metrics;
+    private final IngestSpool spool;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate persistTransaction;
+
+    public IngestJobServiceImpl(IngestJobRepository jobRepository,
+                                IngestJobItemRepository itemRepository,
+                                ImageSetRepository imageSetRepository,
+                                ImageSetMapper imageSetMapper,
+                                IngestJobMapper jobMapper,
+                                ImageDecoder imageDecoder,
+                                DecodeBudget decodeBudget,
+                                IngestionMetrics metrics,
+                                IngestSpool spool,
+                                ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager) {
+        this.jobRepository = jobRepository;
+        this.itemRepository = itemRepository;
+        this.imageSetRepository = imageSetRepository;
+        this.imageSetMapper = imageSetMapper;
+        this.jobMapper = jobMapper;
+        this.imageDecoder = imageDecoder;
+        this.decodeBudget = decodeBudget;
+        this.metrics = metrics;
+        this.spool = spool;
+        this.eventPublisher = eventPublisher;
+        this.persistTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Create the image set with one image row per upload (in request order, so ids and ordering match the synchronous endpoint), spool and validate every upload header and queue one job item per image. The uploads are spooled and probed before the transaction starts, so no connection is held while the client sends its files.
+     */
+    @Override
+    public IngestJobResponseDTO submitJob(ImageSetCreateRequestDTO requestDTO, List<MultipartFile> files) throws IOException {
+        // uploads are moved straight into the spool and probed there; a bad file removes what was spooled
+        String submission = UUID.randomUUID().toString();
+        List<String> spoolPaths = new ArrayList<>(files.size());
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                String spoolPath = spool.write(submission, i, files.get(i));
+                spoolPaths.add(spoolPath);
+                Path upload = spool.resolve(spoolPath);
+                long start = System.nanoTime();
+                ImageHeader header;
+                try {
+                    header = imageDecoder.probe(upload);
+                } catch (Exception e) {
+                    metrics.rejected(Rejection.UNREADABLE);
+                    throw new IllegalArgumentException("Failed to parse image at index " + i + ": " + e.getMessage(), e);
+                }
+                metrics.probed(header, upload.toFile().length(), System.nanoTime() - start);
+                decodeBudget.checkLimits(i, header);
+            }
+        } catch (RuntimeException | IOException e) {
+            spoolPaths.forEach(spool::delete);
+            throw e;
+        }
+
+        try {
+            return persistTransaction.execute(status -> {
+                ImageSet saved = imageSetRepository.save(imageSetMapper.toImageSetEntity(requestDTO));
+                IngestJob job = jobRepository.save(IngestJob.builder().setId(saved.getSetId()).build());
+
+                List<IngestJobItem> items = new ArrayList<>(spoolPaths.size());
+                for (int i = 0; i < spoolPaths.size(); i++) {
+                    items.add(IngestJobItem.builder()
+                            .job(job)
+                            .itemIndex(i)
+                            .imgId(saved.getImages().get(i).getImgId())
+                            .spoolPath(spoolPaths.get(i))
+                            .status(IngestItemStatus.PENDING)
+                            .attempts(0)
+                            .build());
+                }
+                itemRepository.saveAll(items);
+
+                eventPublisher.publishEvent(new ImageSetChangedEvent(saved.getSetId()));
+                return jobMapper.toResponseDTO(job, items);
+            });
+        } catch (RuntimeException e) {
+            spoolPaths.forEach(spool::delete);
+            throw e;
+        }
+    }
+
+    /**
+     * Fetch an ingestion job with the progress of each of its images, throw NotFoundException if not found
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public IngestJobResponseDTO getJob(Long jobId) {
+        IngestJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new NotFoundException("Ingest job not found: " + jobId));
+        return jobMapper.toResponseDTO(job, itemRepository.findByJobJobIdOrderByItemIndex(jobId));
+    }
+}
@@ -0,0 +1,91 @@
+package com.api.imageIngestion.service;
+
+import com.api.imageIngestion.config.IngestJobProperties;
+import com.api.imageIngestion.entity.IngestJobItem;
+import com.api.imageIngestion.processing.ImageProcessingScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Leases ingestion job items whenever this instance has spare capacity and processes them on the image processing
+ * scheduler, one flow per job so that a large job shares the cores with uploads and other jobs, heartbeating the leases it holds until each item is done.
+ * The thumbnails of an item are appended to this instance's namespace of the thumbnail store, whose pointers every
+ * instance sharing the store directory can read.
+ */
+@Component
+public class IngestJobWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestJobWorker.class);
+
+    private final IngestJobQueue queue;
+    private final IngestSpool spool;
+    private final IngestJobProperties properties;
+    private final ImageProcessingScheduler scheduler;
+    private final String instanceId;
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    public IngestJobWorker(IngestJobQueue queue, IngestSpool spool, IngestJobProperties properties,
+                           ImageProcessingScheduler scheduler) {
+        this.queue = queue;
+        this.spool = spool;
+        this.properties = properties;
+        this.scheduler = scheduler;
+        this.instanceId = properties.getInstanceId() != null ? properties.getInstanceId() : UUID.randomUUID().toString();
+    }
+
+    @Scheduled(fixedDelayString = "${ingest-job.poll-interval:1s}")
+    public void poll() {
+        if (properties.isWorkerEnabled()) {
+            leaseAndProcess();
+        }
+    }
+
+    /**
+     * Lease as many items as this instance has free slots for and hand them to the processing scheduler
+     */
+    public void leaseAndProcess() {
+        int capacity = properties.getMaxConcurrentItems() - running.size();
+        if (capacity <= 0) {
+            return;
+        }
+        List<IngestJobItem> leased = queue.lease(instanceId, capacity);
+        for (IngestJobItem item : leased) {
+            running.add(item.getItemId());
+            try {
+                scheduler.submit(item.getJob().getJobId(), () -> process(item));
+            } catch (RejectedExecutionException e) {
+                // the lease simply runs out and the item is picked up again
+                running.remove(item.getItemId());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ingest-job.heartbeat-interval:15s}")
+    public void heartbeat() {
+        if (!running.isEmpty()) {
+            queue.heartbeat(instanceId, Set.copyOf(running));
+        }
+    }
+
+    private void process(IngestJobItem item) {
+        try {
+            queue.complete(item, instanceId, queue.registerContent(item));
+            spool.delete(item.getSpoolPath());
+        } catch (Exception e) {
+            log.warn("Ingest item {} (attempt {}) failed: {}", item.getItemId(), item.getAttempts(), e.getMessage());
+            if (queue.fail(item, instanceId, e)) {
+                spool.delete(item.getSpoolPath());
+            }
+        } finally {
+            running.remove(item.getItemId());
+        }
+    }
+}
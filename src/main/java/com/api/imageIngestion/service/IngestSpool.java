@@ -0,0 +1,60 @@
+package com.api.imageIngestion.service;
+
+import com.api.imageIngestion.config.IngestJobProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+/**
+ * Directory holding the uploads of asynchronous ingestion jobs until a worker has processed them
+ */
+@Component
+public class IngestSpool {
+
+    private final Path directory;
+
+    public IngestSpool(IngestJobProperties properties) {
+        this.directory = Path.of(properties.getSpoolDirectory());
+    }
+
+    /**
+     * Move one uploaded image into the spool directory of a submission and return its path relative to the spool
+     * directory. A part the container already spooled to disk is moved rather than copied.
+     */
+    public String write(String submission, int index, MultipartFile file) throws IOException {
+        String relative = "upload-" + submission + "/" + index + ".upload";
+        Path target = directory.resolve(relative).toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        file.transferTo(target.toFile());
+        return relative;
+    }
+
+    public Path resolve(String relativePath) {
+        return directory.resolve(relativePath);
+    }
+
+    /**
+     * Remove a processed upload, and its job directory once that is empty
+     */
+    public void delete(String relativePath) {
+        Path file = directory.resolve(relativePath);
+        try {
+            Files.deleteIfExists(file);
+            try (var remaining = Files.list(file.getParent())) {
+                if (remaining.findAny().isEmpty()) {
+                    Files.deleteIfExists(file.getParent());
+                }
+            }
+        } catch (DirectoryNotEmptyException | NoSuchFileException ignored) {
+            // another worker finished an image of the same job concurrently
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete spooled upload " + relativePath, e);
+        }
+    }
+}
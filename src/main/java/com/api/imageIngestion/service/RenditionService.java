@@ -0,0 +1,176 @@
+package com.api.imageIngestion.service;
+
+import com.api.imageIngestion.cache.CacheStats;
+import com.api.imageIngestion.cache.ThumbnailCache;
+import com.api.imageIngestion.cache.ThumbnailKey;
+import com.api.imageIngestion.config.RenditionProperties;
+import com.api.imageIngestion.config.ThumbnailCacheProperties;
+import com.api.imageIngestion.entity.ImageThumbnail;
+import com.api.imageIngestion.exception.NotFoundException;
+import com.api.imageIngestion.processing.ContentHash;
+import com.api.imageIngestion.processing.FitMode;
+import com.api.imageIngestion.processing.ImageDecoder;
+import com.api.imageIngestion.processing.ImageProcessingScheduler;
+import com.api.imageIngestion.processing.ThumbnailRenderer;
+import com.api.imageIngestion.repository.ImageThumbnailRepository;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders images at sizes other than the stored profiles on first request. Each rendition is derived from the largest
+ * stored thumbnail of the image, the requested box is rounded up to a fixed set of size buckets so that near-identical
+ * requests share one result, and results are kept in a bounded cache of their own. Concurrent requests for a rendition
+ * that is not cached yet wait for a single render instead of each decoding the source. Renders run on the image
+ * processing workers, one flow per request, so on-demand decoding shares the cores with ingestion instead of running
+ * on the request threads.
+ */
+@Service
+public class RenditionService {
+
+    /**
+     * A resolved rendition request: its source thumbnail and bucketed box (0 leaves a side unbounded)
+     */
+    public record Rendition(Long imgId, ImageThumbnail source, int width, int height, FitMode fit, String etag) {
+
+        String name() {
+            return renditionName(width, height, fit);
+        }
+    }
+
+    private final ImageThumbnailRepository imageThumbnailRepository;
+    private final ThumbnailReader thumbnailReader;
+    private final ImageDecoder imageDecoder;
+    private final ThumbnailRenderer thumbnailRenderer;
+    private final ImageProcessingScheduler scheduler;
+    private final List<Integer> buckets;
+    private final ThumbnailCache renditionCache;
+    private final ConcurrentHashMap<ThumbnailKey, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    public RenditionService(ImageThumbnailRepository imageThumbnailRepository,
+                            ThumbnailReader thumbnailReader,
+                            ImageDecoder imageDecoder,
+                            ThumbnailRenderer thumbnailRenderer,
+                            ImageProcessingScheduler scheduler,
+                            RenditionProperties properties) {
+        this.imageThumbnailRepository = imageThumbnailRepository;
+        this.thumbnailReader = thumbnailReader;
+        this.imageDecoder = imageDecoder;
+        this.thumbnailRenderer = thumbnailRenderer;
+        this.scheduler = scheduler;
+        this.buckets = properties.getBuckets().stream().sorted().distinct().toList();
+        if (buckets.isEmpty() || buckets.get(0) <= 0) {
+            throw new IllegalStateException("rendition.buckets must contain positive sizes");
+        }
+        ThumbnailCacheProperties cacheProperties = new ThumbnailCacheProperties();
+        cacheProperties.setMaxBytes(properties.getCacheMaxBytes());
+        this.renditionCache = new ThumbnailCache(cacheProperties);
+    }
+
+    /**
+     * Validate a rendition request, snap it to the size buckets and look up its source. The ETag is derived from the
+     * source content hash and the bucketed box, so it is known without rendering anything.
+     */
+    public Rendition resolve(Long setId, Long imgId, Integer width, Integer height, FitMode fit) {
+        if (width == null && height == null) {
+            throw new IllegalArgumentException("At least one of w or h must be provided");
+        }
+        if ((width != null && width <= 0) || (height != null && height <= 0)) {
+            throw new IllegalArgumentException("Rendition size must be positive");
+        }
+        // covering needs a box on both sides; with one side open it degenerates to contain
+        FitMode effectiveFit = fit == null || width == null || height == null ? FitMode.CONTAIN : fit;
+
+        ImageThumbnail source = imageThumbnailRepository.findFirstByImageImgIdAndImageImageSetSetIdOrderByWidthDesc(imgId, setId)
+                .orElseThrow(() -> new NotFoundException("Image not found with id: " + imgId + " in set: " + setId));
+
+        int boxWidth = snap(width);
+        int boxHeight = snap(height);
+        String etag = ContentHash.sha256Hex((source.getContentHash() + "|" + renditionName(boxWidth, boxHeight, effectiveFit))
+                .getBytes(StandardCharsets.UTF_8));
+        return new Rendition(imgId, source, boxWidth, boxHeight, effectiveFit, etag);
+    }
+
+    /**
+     * JPEG bytes of a resolved rendition, from the rendition cache or rendered once for all concurrent callers
+     */
+    public byte[] render(Rendition rendition) {
+        ThumbnailKey key = new ThumbnailKey(rendition.source().getContentHash(), rendition.name());
+        Optional<byte[]> cached = renditionCache.get(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            return await(leader);
+        }
+        try {
+            // the request thread only waits; the decode runs in this request's own flow on the processing workers
+            byte[] bytes = await(CompletableFuture.supplyAsync(() -> doRender(rendition), scheduler.flow(new Object())));
+            renditionCache.put(key, bytes);
+            mine.complete(bytes);
+            return bytes;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public CacheStats stats() {
+        return renditionCache.stats();
+    }
+
+    private byte[] doRender(Rendition rendition) {
+        try {
+            byte[] sourceBytes = thumbnailReader.read(rendition.source());
+            return thumbnailRenderer.renderFitted(imageDecoder.decode(sourceBytes),
+                    rendition.width() == 0 ? Integer.MAX_VALUE : rendition.width(),
+                    rendition.height() == 0 ? Integer.MAX_VALUE : rendition.height(),
+                    rendition.fit(), rendition.name()).bytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to render " + rendition.name() + " of image " + rendition.imgId(), e);
+        }
+    }
+
+    private int snap(Integer size) {
+        if (size == null) {
+            return 0;
+        }
+        for (int bucket : buckets) {
+            if (bucket >= size) {
+                return bucket;
+            }
+        }
+        return buckets.get(buckets.size() - 1);
+    }
+
+    private static String renditionName(int width, int height, FitMode fit) {
+        return "r:" + width + "x" + height + ":" + fit.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> render) {
+        try {
+            return render.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.api.imageIngestion.service;
+
+import com.api.imageIngestion.cache.ThumbnailCache;
+import com.api.imageIngestion.cache.ThumbnailKey;
+import com.api.imageIngestion.entity.ImageThumbnail;
+import com.api.imageIngestion.store.ThumbnailStore;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+@Component
+public class ThumbnailReader {
+
+    private final ThumbnailStore thumbnailStore;
+    private final ThumbnailCache thumbnailCache;
+
+    public ThumbnailReader(ThumbnailStore thumbnailStore, ThumbnailCache thumbnailCache) {
+        this.thumbnailStore = thumbnailStore;
+        this.thumbnailCache = thumbnailCache;
+    }
+
+    /**
+     * Read thumbnail bytes through the off-heap thumbnail cache, falling back to the thumbnail store on a miss. Entries
+     * are keyed by content, so images with identical content hit the same entry.
+     */
+    public byte[] read(ImageThumbnail thumbnail) {
+        ThumbnailKey key = new ThumbnailKey(thumbnail.getContentHash(), thumbnail.getProfile());
+        Optional<byte[]> cached = thumbnailCache.get(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        try {
+            byte[] bytes = thumbnailStore.readBytes(thumbnail.getPointer());
+            thumbnailCache.put(key, bytes);
+            return bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read thumbnail " + thumbnail.getThumbnailId(), e);
+        }
+    }
+}
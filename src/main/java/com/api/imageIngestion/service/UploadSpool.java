@@ -0,0 +1,75 @@
+package com.api.imageIngestion.service;
+
+import com.api.imageIngestion.config.ImageProcessingProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Local files holding the uploads of a synchronous request while its images are processed, so they can be decoded
+ * from disk instead of from heap copies of the request body
+ */
+@Component
+public class UploadSpool {
+
+    private final Path directory;
+
+    public UploadSpool(ImageProcessingProperties properties) {
+        this.directory = properties.getUploadDirectory() != null
+                ? Path.of(properties.getUploadDirectory())
+                : Path.of(System.getProperty("java.io.tmpdir"), "image-ingestion-uploads");
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create upload directory " + directory, e);
+        }
+    }
+
+    /**
+     * Move an upload into its own file. A part the container already spooled to disk is moved rather than copied;
+     * a small in-memory part is written out.
+     */
+    public Path spool(MultipartFile file) throws IOException {
+        Path target = directory.resolve(UUID.randomUUID() + ".upload");
+        file.transferTo(target.toFile());
+        return target;
+    }
+
+    /**
+     * Copy a stream, such as one entry of an archive, into its own file, failing once it exceeds maxBytes
+     */
+    public Path spool(InputStream in, long maxBytes) throws IOException {
+        Path target = directory.resolve(UUID.randomUUID() + ".upload");
+        try (OutputStream out = Files.newOutputStream(target)) {
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new IllegalArgumentException("exceeds the limit of " + maxBytes + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            delete(target);
+            throw e;
+        }
+        return target;
+    }
+
+    public void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete spooled upload " + file, e);
+        }
+    }
+}
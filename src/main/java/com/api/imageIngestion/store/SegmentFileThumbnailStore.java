@@ -0,0 +1,385 @@
+package com.api.imageIngestion.store;
+
+import com.api.imageIngestion.config.ThumbnailStoreProperties;
+import com.api.imageIngestion.entity.ThumbnailPointer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, log-structured thumbnail store. Thumbnails are appended as records to large segment files and read
+ * back through read-only memory mappings, so serving a thumbnail is a page-cache copy rather than a JDBC round trip.
+ * <p>
+ * Each instance appends only to the segments of its own namespace, a subdirectory it holds an exclusive file lock on,
+ * and the namespace is part of every pointer. Instances sharing the directory therefore never write to the same file,
+ * and each of them can read any pointer by opening the other namespace's segment read-only.
+ * <p>
+ * Record layout: {@code [int magic][long key][int length][length bytes]}. Thumbnails are only ever found through the
+ * pointers kept in their rows, so the store holds no index of its own. On startup only the last segment of the own
+ * namespace, the one an interrupted append can have left a torn record in, is scanned, and the torn record is
+ * truncated away.
+ * <p>
+ * Segments are never compacted. With a database that is recreated on every start, nothing points at the segments of
+ * an earlier run, so clear-on-startup deletes them: those of the own namespace, and those of every namespace whose
+ * lock no running instance holds.
+ */
+@Component
+public class SegmentFileThumbnailStore implements ThumbnailStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentFileThumbnailStore.class);
+
+    static final int MAGIC = 0x54484D42;
+    static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{8})\\.log");
+    private static final Pattern NAMESPACE = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,63}");
+    private static final String LOCK_FILE = "namespace.lock";
+
+    private final Path directory;
+    private final String namespace;
+    private final long segmentSize;
+    private final boolean fsync;
+
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final Map<Integer, Segment> segments = new ConcurrentHashMap<>();
+    //segments of other instances' namespaces, opened read-only on first use
+    private final Map<String, Segment> foreignSegments = new ConcurrentHashMap<>();
+    private final Object appendLock = new Object();
+    private Segment active;
+
+    public SegmentFileThumbnailStore(ThumbnailStoreProperties properties) throws IOException {
+        if (properties.getSegmentSize() <= HEADER_BYTES || properties.getSegmentSize() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("thumbnail-store.segment-size must be between "
+                    + (HEADER_BYTES + 1) + " and " + Integer.MAX_VALUE + " bytes");
+        }
+        if (properties.getNamespace() == null || !NAMESPACE.matcher(properties.getNamespace()).matches()) {
+            throw new IllegalArgumentException("thumbnail-store.namespace must be 1 to 64 letters, digits, '.', '_' or '-'");
+        }
+        this.directory = Paths.get(properties.getDirectory());
+        this.namespace = properties.getNamespace();
+        this.segmentSize = properties.getSegmentSize();
+        this.fsync = properties.isFsync();
+
+        Path own = directory.resolve(namespace);
+        Files.createDirectories(own);
+        this.lockChannel = FileChannel.open(own.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.lock = tryLock(lockChannel);
+        if (lock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Thumbnail store namespace '" + namespace + "' in " + directory
+                    + " is in use by another instance; give each instance its own thumbnail-store.namespace");
+        }
+        if (properties.isClearOnStartup()) {
+            clearStaleSegments(own);
+        }
+        recover(own);
+    }
+
+    @Override
+    public ThumbnailPointer append(long key, byte[] thumbnail) throws IOException {
+        int recordSize = HEADER_BYTES + thumbnail.length;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Thumbnail of " + thumbnail.length + " bytes does not fit in a segment");
+        }
+
+        synchronized (appendLock) {
+            if (active == null || active.size + recordSize > segmentSize) {
+                roll();
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC)
+                    .putLong(key)
+                    .putInt(thumbnail.length)
+                    .flip();
+            ByteBuffer[] record = {header, ByteBuffer.wrap(thumbnail)};
+            long position = active.size;
+            while (record[0].hasRemaining() || record[1].hasRemaining()) {
+                active.channel.write(record);
+            }
+            if (fsync) {
+                active.channel.force(false);
+            }
+            active.size += recordSize;
+
+            return new ThumbnailPointer(namespace, active.id, position + HEADER_BYTES, thumbnail.length);
+        }
+    }
+
+    @Override
+    public ByteBuffer read(ThumbnailPointer pointer) throws IOException {
+        Segment segment = namespace.equals(pointer.getNamespace())
+                ? segments.get(pointer.getSegment())
+                : foreignSegment(pointer.getNamespace(), pointer.getSegment());
+        if (segment == null) {
+            throw new IOException("Unknown thumbnail segment: " + pointer.getNamespace() + "/" + pointer.getSegment());
+        }
+        return segment.slice(pointer.getOffset(), pointer.getLength());
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * Bytes of an own segment currently covered by its read mapping
+     */
+    long mappedBytes(int segmentId) {
+        Segment segment = segments.get(segmentId);
+        return segment == null ? 0 : segment.mappedBytes();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+            for (Segment segment : foreignSegments.values()) {
+                segment.channel.close();
+            }
+            segments.clear();
+            foreignSegments.clear();
+            active = null;
+            if (lock.isValid()) {
+                lock.release();
+            }
+            lockChannel.close();
+        }
+    }
+
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // held by another store in this JVM
+            return null;
+        }
+    }
+
+    /**
+     * Segment of another instance's namespace. It may still be growing, so its size is read again whenever a pointer
+     * lies past the end last seen.
+     */
+    private Segment foreignSegment(String otherNamespace, int id) throws IOException {
+        if (otherNamespace == null || !NAMESPACE.matcher(otherNamespace).matches()) {
+            return null;
+        }
+        String key = otherNamespace + "/" + id;
+        Segment segment = foreignSegments.get(key);
+        if (segment != null) {
+            return segment;
+        }
+        synchronized (foreignSegments) {
+            segment = foreignSegments.get(key);
+            if (segment == null) {
+                FileChannel channel;
+                try {
+                    channel = FileChannel.open(directory.resolve(otherNamespace).resolve(segmentName(id)), StandardOpenOption.READ);
+                } catch (NoSuchFileException e) {
+                    return null;
+                }
+                segment = new Segment(id, channel, channel.size(), false);
+                foreignSegments.put(key, segment);
+            }
+            return segment;
+        }
+    }
+
+    /**
+     * Delete the segments of the own namespace and of every namespace in the directory that no instance holds locked
+     */
+    private void clearStaleSegments(Path own) throws IOException {
+        List<Path> namespaces;
+        try (Stream<Path> listing = Files.list(directory)) {
+            namespaces = listing.filter(p -> !p.equals(own) && Files.isRegularFile(p.resolve(LOCK_FILE))).toList();
+        }
+        int cleared = deleteSegments(own);
+        for (Path other : namespaces) {
+            try (FileChannel channel = FileChannel.open(other.resolve(LOCK_FILE), StandardOpenOption.WRITE)) {
+                FileLock otherLock = tryLock(channel);
+                if (otherLock != null) {
+                    try {
+                        cleared += deleteSegments(other);
+                    } finally {
+                        otherLock.release();
+                    }
+                }
+            }
+        }
+        if (cleared > 0) {
+            log.info("Deleted {} thumbnail segment(s) of an earlier run from {}", cleared, directory);
+        }
+    }
+
+    private static int deleteSegments(Path namespaceDirectory) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> listing = Files.list(namespaceDirectory)) {
+            paths = listing.filter(p -> SEGMENT_NAME.matcher(p.getFileName().toString()).matches()).toList();
+        }
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+        return paths.size();
+    }
+
+    private static String segmentName(int id) {
+        return String.format("segment-%08d.log", id);
+    }
+
+    /**
+     * Start a new segment file after the highest existing segment id
+     */
+    private void roll() throws IOException {
+        Path own = directory.resolve(namespace);
+        Files.createDirectories(own);
+        if (active != null) {
+            active.sealed = true;
+        }
+        int nextId = segments.keySet().stream().mapToInt(Integer::intValue).max().orElse(0) + 1;
+        FileChannel channel = FileChannel.open(own.resolve(segmentName(nextId)), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = new Segment(nextId, channel, 0, true);
+        segments.put(nextId, active);
+    }
+
+    /**
+     * Open the existing segments of the own namespace in id order; the last one becomes the active segment after its
+     * torn tail is cut off
+     */
+    private void recover(Path own) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(own)) {
+            listing.filter(p -> SEGMENT_NAME.matcher(p.getFileName().toString()).matches())
+                    .sorted()
+                    .forEach(paths::add);
+        }
+
+        for (int i = 0; i < paths.size(); i++) {
+            Path path = paths.get(i);
+            Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+            matcher.matches();
+            int id = Integer.parseInt(matcher.group(1));
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // earlier segments were complete when the next one was started
+            long size = i == paths.size() - 1 ? truncateTornTail(id, channel) : channel.size();
+            Segment segment = new Segment(id, channel, size, true);
+            segment.sealed = i < paths.size() - 1;
+            segments.put(id, segment);
+            active = segment;
+        }
+
+        log.info("Opened {} thumbnail segment(s) of namespace '{}' in {}", segments.size(), namespace, directory);
+    }
+
+    /**
+     * Walk the record headers of a segment and cut the file after the last complete record
+     */
+    private long truncateTornTail(int segmentId, FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (position + HEADER_BYTES <= fileSize) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int magic = header.getInt();
+            header.getLong();
+            int length = header.getInt();
+            if (magic != MAGIC || length < 0 || position + HEADER_BYTES + length > fileSize) {
+                break;
+            }
+            position += HEADER_BYTES + length;
+        }
+        if (position < fileSize) {
+            log.warn("Truncating torn record at offset {} of thumbnail segment {}", position, segmentId);
+            channel.truncate(position);
+        }
+        channel.position(position);
+        return position;
+    }
+
+    private static final class Segment {
+
+        private final int id;
+        private final FileChannel channel;
+        //whether this instance appends to the segment and so always knows its size
+        private final boolean owned;
+        //set once this instance has rolled past the segment, so it no longer grows
+        private volatile boolean sealed;
+        private volatile long size;
+        private volatile MappedByteBuffer mapped;
+
+        private Segment(int id, FileChannel channel, long size, boolean owned) {
+            this.id = id;
+            this.channel = channel;
+            this.size = size;
+            this.owned = owned;
+        }
+
+        /**
+         * Slice of the read-only mapping. A growing segment is remapped only once it has at least doubled since the
+         * last mapping, so a segment is mapped a logarithmic number of times however reads and appends interleave;
+         * records in the tail appended since then are read into a heap buffer instead.
+         */
+        private ByteBuffer slice(long offset, int length) throws IOException {
+            if (!owned && offset + length > size) {
+                size = channel.size();
+            }
+            if (offset < 0 || length < 0 || offset + length > size) {
+                throw new IOException("Thumbnail pointer out of range for segment " + id);
+            }
+            MappedByteBuffer view = mapped;
+            if (view == null || offset + length > view.capacity()) {
+                synchronized (this) {
+                    view = mapped;
+                    long mappedBytes = view == null ? 0 : view.capacity();
+                    long current = size;
+                    if (offset + length > mappedBytes && (sealed || current >= 2 * mappedBytes)) {
+                        view = channel.map(FileChannel.MapMode.READ_ONLY, 0, current);
+                        mapped = view;
+                    }
+                }
+                if (view == null || offset + length > view.capacity()) {
+                    return readTail(offset, length);
+                }
+            }
+            return view.slice((int) offset, length).asReadOnlyBuffer();
+        }
+
+        private ByteBuffer readTail(long offset, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Thumbnail record past the end of segment " + id);
+                }
+            }
+            return buffer.flip().asReadOnlyBuffer();
+        }
+
+        private long mappedBytes() {
+            MappedByteBuffer view = mapped;
+            return view == null ? 0 : view.capacity();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.api.imageIngestion.store;
+
+import com.api.imageIngestion.entity.ThumbnailPointer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Storage for encoded thumbnail bytes, kept outside the relational tables. Rows only hold the returned pointer.
+ */
+public interface ThumbnailStore {
+
+    /**
+     * Append a thumbnail and return where it was written. The key is recorded with the bytes to tell what they belong to.
+     */
+    ThumbnailPointer append(long key, byte[] thumbnail) throws IOException;
+
+    /**
+     * Read-only view of the bytes at pointer. The buffer is positioned at 0 and limited to the thumbnail length.
+     */
+    ByteBuffer read(ThumbnailPointer pointer) throws IOException;
+
+    /**
+     * Copy the bytes at pointer onto the heap
+     */
+    default byte[] readBytes(ThumbnailPointer pointer) throws IOException {
+        ByteBuffer buffer = read(pointer);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,81 @@
+package com.api.imageIngestion.cache;
+
+import com.api.imageIngestion.config.ThumbnailCacheProperties;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailCacheTest {
+
+    private ThumbnailCache cacheOf(long maxBytes) {
+        ThumbnailCacheProperties properties = new ThumbnailCacheProperties();
+        properties.setMaxBytes(maxBytes);
+        return new ThumbnailCache(properties);
+    }
+
+    private static ThumbnailKey key(long id) {
+        return new ThumbnailKey("hash-" + id, "default");
+    }
+
+    @Test
+    void put_thenGet_returnsCopyAndCountsHitsAndMisses() {
+        ThumbnailCache cache = cacheOf(1024);
+
+        assertTrue(cache.get(key(1)).isEmpty());
+        cache.put(key(1), new byte[]{1, 2, 3});
+        byte[] cached = cache.get(key(1)).orElseThrow();
+        cached[0] = 9;
+
+        assertArrayEquals(new byte[]{1, 2, 3}, cache.get(key(1)).orElseThrow());
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(3, stats.usedBytes());
+    }
+
+    @Test
+    void put_neverExceedsByteBudget() {
+        ThumbnailCache cache = cacheOf(1000);
+        for (long id = 0; id < 50; id++) {
+            // touch each key a growing number of times so newcomers keep winning admission
+            for (int i = 0; i <= id % 3; i++) {
+                cache.get(key(id));
+            }
+            cache.put(key(id), new byte[100]);
+            assertTrue(cache.stats().usedBytes() <= 1000);
+        }
+        assertTrue(cache.stats().evictions() > 0);
+    }
+
+    @Test
+    void oneOffScan_doesNotFlushHotEntries() {
+        ThumbnailCache cache = cacheOf(1000);
+        for (long id = 0; id < 10; id++) {
+            for (int i = 0; i < 5; i++) {
+                cache.get(key(id));
+            }
+            cache.put(key(id), new byte[100]);
+        }
+
+        for (long id = 100; id < 1100; id++) {
+            cache.get(key(id));
+            cache.put(key(id), new byte[100]);
+        }
+
+        for (long id = 0; id < 10; id++) {
+            assertTrue(cache.get(key(id)).isPresent(), "hot entry " + id + " was evicted by a scan");
+        }
+        assertTrue(cache.stats().rejections() > 0);
+    }
+
+    @Test
+    void disabledCache_neverStores() {
+        ThumbnailCacheProperties properties = new ThumbnailCacheProperties();
+        properties.setEnabled(false);
+        ThumbnailCache cache = new ThumbnailCache(properties);
+
+        cache.put(key(1), new byte[10]);
+
+        assertTrue(cache.get(key(1)).isEmpty());
+    }
+}
@@ -1,5 +1,9 @@
 package com.api.imageIngestion.controller;
 
+import com.api.imageIngestion.entity.Image;
+import com.api.imageIngestion.entity.ImageSet;
+import com.api.imageIngestion.processing.DecodeBudget;
+import com.api.imageIngestion.processing.ImageHeader;
 import com.api.imageIngestion.repository.ImageSetRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,11 +16,18 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import javax.imageio.ImageIO;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -32,6 +43,9 @@ class ImageSetControllerIntegrationTest {
     @Autowired
     private ImageSetRepository imageSetRepository;
 
+    @Autowired
+    private DecodeBudget decodeBudget;
+
     private MockMultipartFile validImageFile;
     private String validMetadataJson;
 
@@ -244,6 +258,366 @@ class ImageSetControllerIntegrationTest {
                 .andExpect(jsonPath("$.error").value("Not Found"));
     }
 
+    @Test
+    void getImageSet_repeatedReads_shouldReturnIdenticalJson() throws Exception {
+        long setId = extractImageSetId(createValidImageSet());
+
+        String first = mockMvc.perform(get("/image-sets/{id}", setId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/json"))
+                .andExpect(jsonPath("$.images", hasSize(1)))
+                .andExpect(jsonPath("$.images[0].thumbnail").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get("/image-sets/{id}", setId))
+                .andExpect(status().isOk())
+                .andExpect(content().string(first));
+    }
+
+    @Test
+    void getImageSetMetadata_shouldReturnImageMetadataWithoutThumbnails() throws Exception {
+        long setId = extractImageSetId(createValidImageSet());
+
+        mockMvc.perform(get("/image-sets/{id}/metadata", setId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imageSetId").value(setId))
+                .andExpect(jsonPath("$.imageSetName").value("test-album"))
+                .andExpect(jsonPath("$.images", hasSize(1)))
+                .andExpect(jsonPath("$.images[0].imgName").value("test-image.jpg"))
+                .andExpect(jsonPath("$.images[0].dimensions.width").value(100))
+                .andExpect(jsonPath("$.images[0].thumbnail").doesNotExist())
+                .andExpect(jsonPath("$.images[0].thumbnailSizes[*].profile", containsInAnyOrder("64", "150", "320", "640")))
+                .andExpect(jsonPath("$.images[0].thumbnailSizes[0].width").value(64));
+    }
+
+    @Test
+    void getThumbnail_withProfile_shouldReturnThatSize() throws Exception {
+        String created = createValidImageSet();
+        long setId = extractImageSetId(created);
+        long imgId = extractFirstImgId(created);
+
+        byte[] small = mockMvc.perform(get("/image-sets/{id}/images/{imgId}/thumbnail", setId, imgId).param("profile", "64"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        var decoded = ImageIO.read(new ByteArrayInputStream(small));
+        assertEquals(64, decoded.getWidth());
+
+        mockMvc.perform(get("/image-sets/{id}/images/{imgId}/thumbnail", setId, imgId).param("profile", "9999"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getImageSetMetadata_withInvalidId_shouldReturn404() throws Exception {
+        mockMvc.perform(get("/image-sets/{id}/metadata", 999L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getThumbnail_shouldReturnJpegWithImmutableCachingAndHonourIfNoneMatch() throws Exception {
+        String created = createValidImageSet();
+        long setId = extractImageSetId(created);
+        long imgId = extractFirstImgId(created);
+
+        var response = mockMvc.perform(get("/image-sets/{id}/images/{imgId}/thumbnail", setId, imgId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(header().string("ETag", matchesPattern("\"[0-9a-f]{64}\"")))
+                .andExpect(header().string("Cache-Control", containsString("immutable")))
+                .andReturn().getResponse();
+
+        byte[] body = response.getContentAsByteArray();
+        assertEquals((byte) 0xFF, body[0]);
+        assertEquals((byte) 0xD8, body[1]);
+
+        mockMvc.perform(get("/image-sets/{id}/images/{imgId}/thumbnail", setId, imgId)
+                .header("If-None-Match", response.getHeader("ETag")))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getThumbnail_withImageOfAnotherSet_shouldReturn404() throws Exception {
+        String created = createValidImageSet();
+        long imgId = extractFirstImgId(created);
+
+        mockMvc.perform(get("/image-sets/{id}/images/{imgId}/thumbnail", 999L, imgId))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404));
+    }
+
+    @Test
+    void getRendition_shouldRenderFittedSizeAndHonourIfNoneMatch() throws Exception {
+        String created = createValidImageSet();
+        long setId = extractImageSetId(created);
+        long imgId = extractFirstImgId(created);
+
+        var response = mockMvc.perform(get("/image-sets/{id}/images/{imgId}/rendition", setId, imgId)
+                        .param("w", "40").param("h", "40").param("fit", "COVER"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(header().string("Cache-Control", containsString("immutable")))
+                .andReturn().getResponse();
+
+        // 40 snaps up to the 48 bucket
+        var decoded = ImageIO.read(new ByteArrayInputStream(response.getContentAsByteArray()));
+        assertEquals(48, decoded.getWidth());
+        assertEquals(48, decoded.getHeight());
+
+        mockMvc.perform(get("/image-sets/{id}/images/{imgId}/rendition", setId, imgId)
+                        .param("w", "40").param("h", "40").param("fit", "COVER")
+                        .header("If-None-Match", response.getHeader("ETag")))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void getRendition_withInvalidParameters_shouldReturn400() throws Exception {
+        String created = createValidImageSet();
+        long setId = extractImageSetId(created);
+        long imgId = extractFirstImgId(created);
+
+        mockMvc.perform(get("/image-sets/{id}/images/{imgId}/rendition", setId, imgId))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/image-sets/{id}/images/{imgId}/rendition", setId, imgId).param("w", "50").param("fit", "STRETCH"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void listImageSets_shouldWalkPagesNewestFirstWithImageCounts() throws Exception {
+        ImageSet oldest = saveSet("listing-walk-1", 2);
+        ImageSet middle = saveSet("listing-walk-2", 0);
+        ImageSet newest = saveSet("listing-walk-3", 1);
+        saveSet("other-walk", 1);
+
+        String firstPage = mockMvc.perform(get("/image-sets").param("namePrefix", "listing-walk-").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imageSets", hasSize(2)))
+                .andExpect(jsonPath("$.imageSets[0].imageSetId").value(newest.getSetId()))
+                .andExpect(jsonPath("$.imageSets[0].imageCount").value(1))
+                .andExpect(jsonPath("$.imageSets[1].imageSetId").value(middle.getSetId()))
+                .andExpect(jsonPath("$.imageSets[1].imageCount").value(0))
+                .andExpect(jsonPath("$.imageSets[0].images").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").isString())
+                .andReturn().getResponse().getContentAsString();
+
+        String cursor = firstPage.replaceAll("(?s).*\"nextCursor\":\"([^\"]+)\".*", "$1");
+
+        mockMvc.perform(get("/image-sets").param("namePrefix", "listing-walk-").param("limit", "2").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imageSets", hasSize(1)))
+                .andExpect(jsonPath("$.imageSets[0].imageSetId").value(oldest.getSetId()))
+                .andExpect(jsonPath("$.imageSets[0].imageSetName").value("listing-walk-1"))
+                .andExpect(jsonPath("$.imageSets[0].imageCount").value(2))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void listImageSets_withWildcardCharactersInPrefix_shouldMatchThemLiterally() throws Exception {
+        ImageSet literal = saveSet("listing_wild%", 0);
+        saveSet("listingXwildY", 0);
+
+        mockMvc.perform(get("/image-sets").param("namePrefix", "listing_wild%"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imageSets", hasSize(1)))
+                .andExpect(jsonPath("$.imageSets[0].imageSetId").value(literal.getSetId()));
+    }
+
+    @Test
+    void listImageSets_withInvalidCursorOrLimit_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/image-sets").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/image-sets").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void listImages_shouldPageThroughImagesInIdOrder() throws Exception {
+        ImageSet imageSet = saveSet("paged-images", 3);
+        List<Long> imgIds = imageSet.getImages().stream().map(Image::getImgId).sorted().toList();
+
+        mockMvc.perform(get("/image-sets/{id}/images/metadata", imageSet.getSetId()).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imageSetId").value(imageSet.getSetId()))
+                .andExpect(jsonPath("$.images", hasSize(2)))
+                .andExpect(jsonPath("$.images[0].imgId").value(imgIds.get(0)))
+                .andExpect(jsonPath("$.images[1].imgId").value(imgIds.get(1)))
+                .andExpect(jsonPath("$.images[0].thumbnailSizes", hasSize(0)))
+                .andExpect(jsonPath("$.nextAfter").value(imgIds.get(1)));
+
+        mockMvc.perform(get("/image-sets/{id}/images", imageSet.getSetId()).param("limit", "2").param("after", imgIds.get(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.images", hasSize(1)))
+                .andExpect(jsonPath("$.images[0].imgId").value(imgIds.get(2)))
+                .andExpect(jsonPath("$.images[0].imgName").value("paged-images-2.jpg"))
+                .andExpect(jsonPath("$.nextAfter").doesNotExist());
+    }
+
+    @Test
+    void listImages_withInvalidId_shouldReturn404() throws Exception {
+        mockMvc.perform(get("/image-sets/{id}/images", 999L))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/image-sets/{id}/images/metadata", 999L))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getImageSet_withMatchingValidators_shouldReturn304UntilTheSetChanges() throws Exception {
+        ImageSet imageSet = saveSet("versioned-set", 1);
+
+        var response = mockMvc.perform(get("/image-sets/{id}", imageSet.getSetId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0-full\""))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse();
+        mockMvc.perform(get("/image-sets/{id}/metadata", imageSet.getSetId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0-metadata\""));
+
+        mockMvc.perform(get("/image-sets/{id}", imageSet.getSetId()).header("If-None-Match", "\"0-full\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get("/image-sets/{id}", imageSet.getSetId()).param("stream", "true").header("If-None-Match", "\"0-full\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/image-sets/{id}/metadata", imageSet.getSetId())
+                        .header("If-Modified-Since", response.getHeader("Last-Modified")))
+                .andExpect(status().isNotModified());
+
+        imageSetRepository.touch(imageSet.getSetId(), Instant.now().plusSeconds(1));
+
+        mockMvc.perform(get("/image-sets/{id}", imageSet.getSetId()).header("If-None-Match", "\"0-full\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-full\""))
+                .andExpect(jsonPath("$.imageSetName").value("versioned-set"));
+    }
+
+    @Test
+    void getImageSet_streamedWithInvalidId_shouldReturn404() throws Exception {
+        mockMvc.perform(get("/image-sets/{id}", 999L).param("stream", "true"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/image-sets/{id}/metadata", 999L).param("stream", "true"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void importArchive_shouldCreateOneImagePerEntryAcrossChunks() throws Exception {
+        byte[] other = jpeg(40, 80);
+        byte[] archive = zip(
+                "photos/", null,
+                "photos/a.jpg", validImageFile.getBytes(),
+                "photos/b.jpg", other,
+                "__MACOSX/photos/._a.jpg", new byte[]{1, 2, 3},
+                "photos/.DS_Store", new byte[]{4},
+                "photos/c.jpg", validImageFile.getBytes(),
+                "d.jpg", other,
+                "e.jpg", jpeg(10, 10));
+
+        String created = mockMvc.perform(post("/image-sets/archive").param("name", "zip-album")
+                        .contentType("application/zip").content(archive))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", startsWith("/image-sets/")))
+                .andExpect(jsonPath("$.imageSetName").value("zip-album"))
+                .andExpect(jsonPath("$.imageCount").value(5))
+                .andReturn().getResponse().getContentAsString();
+        long setId = extractImageSetId(created);
+
+        mockMvc.perform(get("/image-sets/{id}/images/metadata", setId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.images[*].imgName", contains("a.jpg", "b.jpg", "c.jpg", "d.jpg", "e.jpg")))
+                .andExpect(jsonPath("$.images[1].dimensions.width").value(40))
+                .andExpect(jsonPath("$.images[3].dimensions.height").value(80))
+                .andExpect(jsonPath("$.images[4].thumbnailSizes", hasSize(4)));
+        mockMvc.perform(get("/image-sets/{id}/images/{imgId}/thumbnail", setId, extractFirstImgId(
+                        mockMvc.perform(get("/image-sets/{id}/images/metadata", setId)).andReturn().getResponse().getContentAsString())))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"));
+    }
+
+    @Test
+    void importArchive_withUnreadableEntry_shouldReturn400NamingIt() throws Exception {
+        byte[] archive = zip(
+                "a.jpg", validImageFile.getBytes(),
+                "notes.jpg", "not an image".getBytes());
+
+        mockMvc.perform(post("/image-sets/archive").param("name", "bad-zip")
+                        .contentType("application/zip").content(archive))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("notes.jpg")));
+    }
+
+    @Test
+    void importArchive_withDecodeBudgetExhausted_shouldReturn503WithRetryAfter() throws Exception {
+        byte[] archive = zip("a.jpg", jpeg(33, 17));
+
+        // a header far above the budget reserves all of it, so the entry times out waiting for its reservation
+        try (DecodeBudget.Reservation ignored = decodeBudget.reserve(new ImageHeader("jpeg", 100_000, 100_000))) {
+            mockMvc.perform(post("/image-sets/archive").param("name", "busy-zip")
+                            .contentType("application/zip").content(archive))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "5"))
+                    .andExpect(jsonPath("$.message", not(containsString("Archive entry"))));
+        }
+    }
+
+    @Test
+    void importArchive_withoutImagesOrWithGarbage_shouldReturn400() throws Exception {
+        mockMvc.perform(post("/image-sets/archive").param("name", "empty-zip")
+                        .contentType("application/zip").content(zip("folder/", null)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/image-sets/archive").param("name", "not-a-zip")
+                        .contentType("application/zip").content("definitely not a zip".getBytes()))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static byte[] jpeg(int width, int height) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", out);
+        return out.toByteArray();
+    }
+
+    // name/content pairs; a null content makes a folder entry
+    private static byte[] zip(Object... entries) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (int i = 0; i < entries.length; i += 2) {
+                zip.putNextEntry(new ZipEntry((String) entries[i]));
+                if (entries[i + 1] != null) {
+                    zip.write((byte[]) entries[i + 1]);
+                }
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private ImageSet saveSet(String name, int imageCount) {
+        ImageSet imageSet = ImageSet.builder().setName(name).images(new ArrayList<>()).build();
+        for (int i = 0; i < imageCount; i++) {
+            imageSet.getImages().add(Image.builder().imgName(name + "-" + i + ".jpg").imageSet(imageSet).build());
+        }
+        return imageSetRepository.saveAndFlush(imageSet);
+    }
+
+    private String createValidImageSet() throws Exception {
+        MockMultipartFile metadataPart = new MockMultipartFile(
+                "metadata",
+                "",
+                "application/json",
+                validMetadataJson.getBytes()
+        );
+
+        return mockMvc.perform(multipart("/image-sets")
+                .file(validImageFile)
+                .file(metadataPart))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private long extractFirstImgId(String jsonResponse) {
+        int startIdx = jsonResponse.indexOf("\"imgId\":") + 8;
+        int endIdx = jsonResponse.indexOf(",", startIdx);
+        return Long.parseLong(jsonResponse.substring(startIdx, endIdx).trim());
+    }
+
     private long extractImageSetId(String jsonResponse) {
         // Simple extraction of imageSetId from JSON response
         int startIdx = jsonResponse.indexOf("\"imageSetId\":") + 13;
@@ -0,0 +1,197 @@
+package com.api.imageIngestion.controller;
+
+import com.api.imageIngestion.entity.ImageContent;
+import com.api.imageIngestion.processing.ContentHash;
+import com.api.imageIngestion.repository.ImageContentRepository;
+import com.api.imageIngestion.service.IngestJobWorker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// not @Transactional: jobs are processed by the worker threads, which only see committed rows
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IngestJobControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IngestJobWorker ingestJobWorker;
+
+    @Autowired
+    private ImageContentRepository imageContentRepository;
+
+    private MockMultipartFile metadataPart;
+    private byte[] imageBytes;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        BufferedImage testImage = new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(testImage, "jpg", baos);
+        imageBytes = baos.toByteArray();
+
+        metadataPart = new MockMultipartFile("metadata", "", "application/json", """
+                {
+                    "imageSetName": "async-album",
+                    "images": [
+                        { "imgName": "first.jpg" },
+                        { "imgName": "second.jpg" }
+                    ]
+                }
+                """.getBytes());
+    }
+
+    @Test
+    void submitJob_shouldReturnAcceptedAndCompleteInTheBackground() throws Exception {
+        String accepted = mockMvc.perform(multipart("/ingest-jobs")
+                        .file(new MockMultipartFile("files", "first.jpg", "image/jpeg", imageBytes))
+                        .file(new MockMultipartFile("files", "second.jpg", "image/jpeg", imageBytes))
+                        .file(metadataPart))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", startsWith("/ingest-jobs/")))
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andExpect(jsonPath("$.totalImages").value(2))
+                .andExpect(jsonPath("$.images[0].index").value(0))
+                .andExpect(jsonPath("$.images[1].index").value(1))
+                .andReturn().getResponse().getContentAsString();
+        JsonNode job = objectMapper.readTree(accepted);
+        long jobId = job.get("jobId").asLong();
+        long setId = job.get("imageSetId").asLong();
+
+        JsonNode status = awaitFinished(jobId);
+        assertEquals("SUCCEEDED", status.get("status").asString());
+        assertEquals(2, status.get("completedImages").asInt());
+
+        long imgId = status.get("images").get(1).get("imgId").asLong();
+        mockMvc.perform(get("/image-sets/{id}/images/{imgId}/thumbnail", setId, imgId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"));
+        mockMvc.perform(get("/image-sets/{id}/metadata", setId))
+                .andExpect(status().isOk())
+                // each processed image bumps the set version once
+                .andExpect(header().string("ETag", "\"2-metadata\""))
+                .andExpect(jsonPath("$.images[0].imgName").value("first.jpg"))
+                .andExpect(jsonPath("$.images[1].dimensions.width").value(100));
+
+        // both uploads carry the same bytes, so they share one content entry and its stored thumbnails
+        ImageContent content = imageContentRepository.findById(ContentHash.sha256Hex(imageBytes)).orElseThrow();
+        assertTrue(content.getRefCount() >= 2);
+    }
+
+    @Test
+    void getImageSet_streamed_shouldMatchBufferedJson() throws Exception {
+        String accepted = mockMvc.perform(multipart("/ingest-jobs")
+                        .file(new MockMultipartFile("files", "first.jpg", "image/jpeg", imageBytes))
+                        .file(new MockMultipartFile("files", "second.jpg", "image/jpeg", imageBytes))
+                        .file(metadataPart))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode job = objectMapper.readTree(accepted);
+        assertEquals("SUCCEEDED", awaitFinished(job.get("jobId").asLong()).get("status").asString());
+        long setId = job.get("imageSetId").asLong();
+
+        assertStreamedMatchesBuffered(setId);
+    }
+
+    @Test
+    void getImageSet_streamed_shouldMatchBufferedJsonWhenProfilesCollapse() throws Exception {
+        // smaller than every profile, so all thumbnails share one width and only the profile orders them
+        BufferedImage tiny = new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB);
+        tiny.setRGB(3, 4, 0xff8800);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(tiny, "jpg", baos);
+        byte[] tinyBytes = baos.toByteArray();
+
+        String accepted = mockMvc.perform(multipart("/ingest-jobs")
+                        .file(new MockMultipartFile("files", "first.jpg", "image/jpeg", tinyBytes))
+                        .file(new MockMultipartFile("files", "second.jpg", "image/jpeg", tinyBytes))
+                        .file(metadataPart))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode job = objectMapper.readTree(accepted);
+        assertEquals("SUCCEEDED", awaitFinished(job.get("jobId").asLong()).get("status").asString());
+        long setId = job.get("imageSetId").asLong();
+
+        mockMvc.perform(get("/image-sets/{id}/metadata", setId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.images[0].thumbnailSizes[*].width", everyItem(is(20))))
+                .andExpect(jsonPath("$.images[0].thumbnailSizes[*].profile", contains("150", "320", "64", "640")));
+        assertStreamedMatchesBuffered(setId);
+    }
+
+    @Test
+    void submitJob_withInvalidImage_shouldReturn400WithoutQueueing() throws Exception {
+        mockMvc.perform(multipart("/ingest-jobs")
+                        .file(new MockMultipartFile("files", "first.jpg", "image/jpeg", imageBytes))
+                        .file(new MockMultipartFile("files", "second.jpg", "image/jpeg", "not an image".getBytes()))
+                        .file(metadataPart))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("index 1")));
+    }
+
+    @Test
+    void getJob_withInvalidId_shouldReturn404() throws Exception {
+        mockMvc.perform(get("/ingest-jobs/{jobId}", 999_999L))
+                .andExpect(status().isNotFound());
+    }
+
+    private void assertStreamedMatchesBuffered(long setId) throws Exception {
+        for (String path : List.of("/image-sets/{id}", "/image-sets/{id}/metadata")) {
+            String buffered = mockMvc.perform(get(path, setId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            MvcResult started = mockMvc.perform(get(path, setId).param("stream", "true"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String streamed = mockMvc.perform(asyncDispatch(started))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/json"))
+                    .andExpect(jsonPath("$.images", hasSize(2)))
+                    .andExpect(jsonPath("$.images[0].thumbnailSizes", not(empty())))
+                    .andReturn().getResponse().getContentAsString();
+
+            assertEquals(buffered, streamed);
+        }
+    }
+
+    private JsonNode awaitFinished(long jobId) throws Exception {
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (true) {
+            ingestJobWorker.leaseAndProcess();
+            JsonNode status = objectMapper.readTree(mockMvc.perform(get("/ingest-jobs/{jobId}", jobId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            String state = status.get("status").asString();
+            if (state.equals("SUCCEEDED") || state.equals("FAILED")) {
+                return status;
+            }
+            assertTrue(System.currentTimeMillis() < deadline, "job did not finish: " + status);
+            Thread.sleep(50);
+        }
+    }
+}
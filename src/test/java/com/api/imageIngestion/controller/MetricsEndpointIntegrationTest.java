@@ -0,0 +1,49 @@
+package com.api.imageIngestion.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.micrometer.metrics.test.autoconfigure.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@ActiveProfiles("test")
+class MetricsEndpointIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void prometheus_shouldExposeIngestionMetricsAfterUpload() throws Exception {
+        BufferedImage testImage = new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(testImage, "jpg", baos);
+
+        mockMvc.perform(multipart("/ingest-jobs")
+                        .file(new MockMultipartFile("files", "test.jpg", "image/jpeg", baos.toByteArray()))
+                        .file(new MockMultipartFile("metadata", "", "application/json", """
+                                { "imageSetName": "metrics-album", "images": [ { "imgName": "test.jpg" } ] }
+                                """.getBytes())))
+                .andExpect(status().isAccepted());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("image_ingest_probe_seconds_bucket{application=\"imageIngestion\",format=\"jpeg\"")))
+                .andExpect(content().string(containsString("image_ingest_input_bytes_bucket")))
+                .andExpect(content().string(containsString("image_ingest_rejections_total{application=\"imageIngestion\",cause=\"budget_exhausted\"}")))
+                .andExpect(content().string(containsString("image_cache_requests_total")));
+    }
+}
@@ -0,0 +1,81 @@
+package com.api.imageIngestion.processing;
+
+import com.api.imageIngestion.config.DecodeBudgetProperties;
+import com.api.imageIngestion.exception.CapacityExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecodeBudgetTest {
+
+    // 1000x1000 is estimated at 4 MB of raster plus a third for resampling
+    private static final ImageHeader MEGAPIXEL = new ImageHeader("jpeg", 1000, 1000);
+
+    private static DecodeBudget budget(long maxBytes, Duration maxWait) {
+        DecodeBudgetProperties properties = new DecodeBudgetProperties();
+        properties.setMaxBytes(maxBytes);
+        properties.setMaxWait(maxWait);
+        properties.setRetryAfter(Duration.ofSeconds(7));
+        return new DecodeBudget(properties);
+    }
+
+    @Test
+    void estimateBytes_coversRasterAndResampling() {
+        assertEquals(4_000_000L + 4_000_000L / 3, DecodeBudget.estimateBytes(MEGAPIXEL));
+    }
+
+    @Test
+    void reserve_releasesOnClose() {
+        DecodeBudget budget = budget(20_000_000L, Duration.ZERO);
+
+        try (DecodeBudget.Reservation ignored = budget.reserve(MEGAPIXEL)) {
+            assertEquals(DecodeBudget.estimateBytes(MEGAPIXEL), budget.getReservedBytes());
+        }
+        assertEquals(0, budget.getReservedBytes());
+    }
+
+    @Test
+    void reserve_whenExhausted_rejectsAfterWaitingWithRetryAfter() {
+        DecodeBudget budget = budget(6_000_000L, Duration.ofMillis(50));
+
+        try (DecodeBudget.Reservation ignored = budget.reserve(MEGAPIXEL)) {
+            CapacityExceededException ex = assertThrows(CapacityExceededException.class, () -> budget.reserve(MEGAPIXEL));
+            assertEquals(Duration.ofSeconds(7), ex.getRetryAfter());
+        }
+        assertEquals(1, budget.getRejections());
+    }
+
+    @Test
+    void reserve_waitsForReleaseWithinMaxWait() throws Exception {
+        DecodeBudget budget = budget(6_000_000L, Duration.ofSeconds(5));
+        DecodeBudget.Reservation first = budget.reserve(MEGAPIXEL);
+
+        CompletableFuture<DecodeBudget.Reservation> second = CompletableFuture.supplyAsync(() -> budget.reserve(MEGAPIXEL));
+        Thread.sleep(100);
+        assertFalse(second.isDone());
+        assertEquals(1, budget.getWaiting());
+
+        first.close();
+        second.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0, budget.getReservedBytes());
+    }
+
+    @Test
+    void checkLimits_rejectsImagesAbovePixelCapOrWholeBudget() {
+        DecodeBudgetProperties properties = new DecodeBudgetProperties();
+        properties.setMaxBytes(100_000_000L);
+        properties.setMaxImagePixels(2_000_000L);
+        DecodeBudget budget = new DecodeBudget(properties);
+
+        budget.checkLimits(0, MEGAPIXEL);
+        assertThrows(IllegalArgumentException.class, () -> budget.checkLimits(1, new ImageHeader("jpeg", 2000, 1001)));
+
+        properties.setMaxBytes(1_000_000L);
+        DecodeBudget small = new DecodeBudget(properties);
+        assertThrows(IllegalArgumentException.class, () -> small.checkLimits(0, MEGAPIXEL));
+    }
+}
@@ -0,0 +1,101 @@
+package com.api.imageIngestion.processing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageProcessingSchedulerTest {
+
+    private ImageProcessingScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void flows_takeTurnsInsteadOfRunningInSubmissionOrder() throws Exception {
+        scheduler = new ImageProcessingScheduler(1, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        // hold the only worker so everything below queues up
+        occupyWorker(release);
+
+        for (int i = 0; i < 4; i++) {
+            String name = "batch-" + i;
+            scheduler.submit("batch", () -> order.add(name));
+        }
+        scheduler.submit("interactive", () -> order.add("interactive"));
+        assertEquals(5, scheduler.getQueueDepth());
+        assertEquals(2, scheduler.getQueuedFlows());
+
+        CompletableFuture<Void> done = CompletableFuture.runAsync(() -> {
+        }, scheduler.flow("batch"));
+        release.countDown();
+        done.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("batch-0", "interactive", "batch-1", "batch-2", "batch-3"), order);
+        assertEquals(0, scheduler.getQueueDepth());
+    }
+
+    @Test
+    void fullFlow_blocksItsSubmitterButNotOtherFlows() throws Exception {
+        scheduler = new ImageProcessingScheduler(1, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        occupyWorker(release);
+        scheduler.submit("batch", () -> {
+        });
+        scheduler.submit("batch", () -> {
+        });
+
+        CompletableFuture<Void> third = CompletableFuture.runAsync(() -> scheduler.submit("batch", () -> {
+        }));
+        scheduler.submit("interactive", () -> {
+        });
+        assertThrows(Exception.class, () -> third.get(200, TimeUnit.MILLISECONDS));
+        assertEquals(3, scheduler.stats().queued());
+
+        release.countDown();
+        third.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void shutdown_finishesQueuedTasksAndRejectsNewOnes() throws Exception {
+        scheduler = new ImageProcessingScheduler(2, 10);
+        CountDownLatch ran = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            scheduler.submit("flow", ran::countDown);
+        }
+
+        scheduler.shutdown();
+
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertThrows(RejectedExecutionException.class, () -> scheduler.submit("flow", () -> {
+        }));
+    }
+
+    private void occupyWorker(CountDownLatch release) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        scheduler.submit("blocker", () -> {
+            started.countDown();
+            await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.api.imageIngestion.processing;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailEncoderTest {
+
+    private final ThumbnailEncoder encoder = new ThumbnailEncoder();
+
+    private static BufferedImage gradient(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.RED, width, height, Color.BLUE));
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.WHITE);
+        g.drawString("thumbnail", 10, height / 2);
+        g.dispose();
+        return image;
+    }
+
+    // SOF0 marks a baseline frame, SOF2 a progressive one
+    private static boolean hasMarker(byte[] jpeg, int marker) {
+        for (int i = 0; i < jpeg.length - 1; i++) {
+            if ((jpeg[i] & 0xFF) == 0xFF && (jpeg[i + 1] & 0xFF) == marker) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    void encode_producesDecodableJpegOfSameSize() throws Exception {
+        byte[] bytes = encoder.encode(gradient(320, 200), JpegSettings.DEFAULT, "320");
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(bytes));
+        assertEquals(320, decoded.getWidth());
+        assertEquals(200, decoded.getHeight());
+        assertTrue(hasMarker(bytes, 0xC0));
+    }
+
+    @Test
+    void encode_lowerQuality_isSmaller() throws Exception {
+        BufferedImage image = gradient(320, 200);
+
+        byte[] high = encoder.encode(image, new JpegSettings(0.95f, false, true), "high");
+        byte[] low = encoder.encode(image, new JpegSettings(0.4f, false, true), "low");
+
+        assertTrue(low.length < high.length);
+    }
+
+    @Test
+    void encode_progressive_writesProgressiveFrame() throws Exception {
+        byte[] bytes = encoder.encode(gradient(320, 200), new JpegSettings(0.75f, true, true), "640");
+
+        assertTrue(hasMarker(bytes, 0xC2));
+        assertNotNull(ImageIO.read(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void encode_reusedWriterAndBuffer_giveIdenticalOutput() throws Exception {
+        BufferedImage image = gradient(200, 100);
+
+        byte[] first = encoder.encode(image, JpegSettings.DEFAULT, "150");
+        encoder.encode(gradient(640, 480), new JpegSettings(0.9f, true, false), "640");
+        byte[] again = encoder.encode(image, JpegSettings.DEFAULT, "150");
+
+        assertArrayEquals(first, again);
+    }
+
+    @Test
+    void stats_recordCountTimeAndBytesPerProfile() throws Exception {
+        byte[] a = encoder.encode(gradient(64, 32), JpegSettings.DEFAULT, "64");
+        byte[] b = encoder.encode(gradient(64, 32), JpegSettings.DEFAULT, "64");
+
+        List<EncodeStats> stats = encoder.stats();
+        assertEquals(1, stats.size());
+        EncodeStats stat = stats.get(0);
+        assertEquals("64", stat.profile());
+        assertEquals(2, stat.encodes());
+        assertEquals(a.length + b.length, stat.totalBytes());
+        assertTrue(stat.totalNanos() > 0);
+        assertEquals(JpegSettings.DEFAULT, stat.settings());
+    }
+
+    @Test
+    void jpegSettings_rejectQualityOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new JpegSettings(1.5f, false, true));
+    }
+}
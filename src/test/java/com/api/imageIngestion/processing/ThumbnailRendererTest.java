@@ -0,0 +1,107 @@
+package com.api.imageIngestion.processing;
+
+import com.api.imageIngestion.config.ImageProcessingProperties;
+import com.api.imageIngestion.metrics.IngestionMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ThumbnailRendererTest {
+
+    private final ImageProcessingProperties properties = new ImageProcessingProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IngestionMetrics metrics = new IngestionMetrics(meterRegistry);
+
+    @Test
+    void render_producesEveryProfileLargestFirst() throws Exception {
+        ThumbnailRenderer renderer = new ThumbnailRenderer(new ThumbnailResampler(properties), new ThumbnailEncoder(), metrics, properties);
+
+        List<RenderedThumbnail> rendered = renderer.render(new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_RGB));
+
+        assertEquals(List.of("640", "320", "150", "64"), rendered.stream().map(RenderedThumbnail::profile).toList());
+        assertEquals(640, rendered.get(0).width());
+        assertEquals(320, rendered.get(0).height());
+        assertEquals(64, rendered.get(3).width());
+        assertEquals(32, rendered.get(3).height());
+        rendered.forEach(r -> assertTrue(r.bytes().length > 0));
+    }
+
+    @Test
+    void render_derivesEachSizeFromThePreviousOne() throws Exception {
+        ThumbnailResampler resampler = spy(new ThumbnailResampler(properties));
+        ThumbnailRenderer renderer = new ThumbnailRenderer(resampler, new ThumbnailEncoder(), metrics, properties);
+        BufferedImage source = new BufferedImage(2000, 1000, BufferedImage.TYPE_INT_RGB);
+
+        renderer.render(source);
+
+        // only the first step reads the full-resolution source
+        verify(resampler, times(1)).resize(same(source), anyInt(), anyInt());
+        verify(resampler).resize(argThat(img -> img.getWidth() == 640), eq(320), eq(160));
+        verify(resampler).resize(argThat(img -> img.getWidth() == 320), eq(150), eq(75));
+        verify(resampler).resize(argThat(img -> img.getWidth() == 150), eq(64), eq(32));
+    }
+
+    @Test
+    void render_withNarrowSource_sharesBytesInsteadOfUpscaling() throws Exception {
+        ThumbnailRenderer renderer = new ThumbnailRenderer(new ThumbnailResampler(properties), new ThumbnailEncoder(), metrics, properties);
+
+        List<RenderedThumbnail> rendered = renderer.render(new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB));
+
+        assertEquals(100, rendered.get(0).width());
+        assertSame(rendered.get(0).bytes(), rendered.get(2).bytes());
+        assertEquals(64, rendered.get(3).width());
+    }
+
+    @Test
+    void renderFitted_contain_fitsInsideBoxKeepingAspect() throws Exception {
+        ThumbnailRenderer renderer = new ThumbnailRenderer(new ThumbnailResampler(properties), new ThumbnailEncoder(), metrics, properties);
+
+        RenderedThumbnail rendition = renderer.renderFitted(new BufferedImage(640, 320, BufferedImage.TYPE_INT_RGB),
+                200, 200, FitMode.CONTAIN, "r");
+
+        assertEquals(200, rendition.width());
+        assertEquals(100, rendition.height());
+    }
+
+    @Test
+    void renderFitted_cover_fillsBoxAndCrops() throws Exception {
+        ThumbnailRenderer renderer = new ThumbnailRenderer(new ThumbnailResampler(properties), new ThumbnailEncoder(), metrics, properties);
+
+        RenderedThumbnail rendition = renderer.renderFitted(new BufferedImage(640, 320, BufferedImage.TYPE_INT_RGB),
+                200, 200, FitMode.COVER, "r");
+
+        assertEquals(200, rendition.width());
+        assertEquals(200, rendition.height());
+    }
+
+    @Test
+    void renderFitted_neverUpscales() throws Exception {
+        ThumbnailRenderer renderer = new ThumbnailRenderer(new ThumbnailResampler(properties), new ThumbnailEncoder(), metrics, properties);
+
+        RenderedThumbnail rendition = renderer.renderFitted(new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB),
+                400, Integer.MAX_VALUE, FitMode.CONTAIN, "r");
+
+        assertEquals(100, rendition.width());
+        assertEquals(50, rendition.height());
+    }
+
+    @Test
+    void renderFitted_recordsEverySizeUnderTheRenditionProfile() throws Exception {
+        ThumbnailRenderer renderer = new ThumbnailRenderer(new ThumbnailResampler(properties), new ThumbnailEncoder(), metrics, properties);
+        BufferedImage source = new BufferedImage(640, 320, BufferedImage.TYPE_INT_RGB);
+
+        renderer.renderFitted(source, 200, 200, FitMode.COVER, "r:200x200:cover");
+        renderer.renderFitted(source, 96, Integer.MAX_VALUE, FitMode.CONTAIN, "r:96x0:contain");
+
+        for (String meter : List.of("image.ingest.resize", "image.ingest.encode", "image.ingest.thumbnail.bytes")) {
+            assertEquals(List.of("rendition"), meterRegistry.find(meter).meters().stream()
+                    .map(m -> m.getId().getTag("profile")).toList(), meter);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.api.imageIngestion.processing;
+
+import com.api.imageIngestion.config.ImageProcessingProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThumbnailResamplerTest {
+
+    private final ThumbnailResampler resampler = new ThumbnailResampler(new ImageProcessingProperties());
+
+    @ParameterizedTest
+    @EnumSource(ResampleQuality.class)
+    void resize_producesExactTargetSizeForEveryTier(ResampleQuality quality) {
+        BufferedImage src = new BufferedImage(4000, 3000, BufferedImage.TYPE_3BYTE_BGR);
+
+        BufferedImage out = resampler.resize(src, 150, 112, quality);
+
+        assertEquals(150, out.getWidth());
+        assertEquals(112, out.getHeight());
+        assertEquals(BufferedImage.TYPE_INT_RGB, out.getType());
+    }
+
+    @Test
+    void resize_preservesSolidColour() {
+        BufferedImage src = new BufferedImage(1024, 512, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < src.getHeight(); y++) {
+            for (int x = 0; x < src.getWidth(); x++) {
+                src.setRGB(x, y, 0x336699);
+            }
+        }
+
+        BufferedImage out = resampler.resize(src, 100, 50, ResampleQuality.QUALITY);
+
+        assertEquals(0x336699, out.getRGB(50, 25) & 0xFFFFFF);
+    }
+
+    @Test
+    void resize_withNonPositiveTarget_shouldThrow() {
+        BufferedImage src = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        assertThrows(IllegalArgumentException.class, () -> resampler.resize(src, 0, 10));
+    }
+}
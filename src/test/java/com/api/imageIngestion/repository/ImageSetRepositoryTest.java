@@ -0,0 +1,121 @@
+package com.api.imageIngestion.repository;
+
+import com.api.imageIngestion.entity.Image;
+import com.api.imageIngestion.entity.ImageSet;
+import com.api.imageIngestion.entity.ImageThumbnail;
+import com.api.imageIngestion.entity.ThumbnailPointer;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class ImageSetRepositoryTest {
+
+    private static final int IMAGE_COUNT = 500;
+    private static final int THUMBNAIL_BYTES = 8 * 1024;
+
+    @Autowired
+    private ImageSetRepository imageSetRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private Long setId;
+
+    @BeforeEach
+    void setUp() {
+        setId = imageSetRepository.save(newSet("large-set")).getSetId();
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    private static ImageSet newSet(String name) {
+        ImageSet set = ImageSet.builder().setName(name).build();
+        List<Image> images = new ArrayList<>();
+        for (int i = 0; i < IMAGE_COUNT; i++) {
+            Image image = Image.builder()
+                    .imgName("img-" + i)
+                    .width(4000)
+                    .height(3000)
+                    .imageSet(set)
+                    .build();
+            image.getThumbnails().add(ImageThumbnail.builder()
+                    .image(image)
+                    .profile("150")
+                    .width(150)
+                    .height(112)
+                    .pointer(new ThumbnailPointer("default", 1, (long) i * THUMBNAIL_BYTES, THUMBNAIL_BYTES))
+                    .contentHash(Integer.toHexString(i))
+                    .build());
+            images.add(image);
+        }
+        set.setImages(images);
+        return set;
+    }
+
+    @Test
+    void loadingImages_leavesThumbnailRowsUnloadedAndUnqueried() {
+        ImageSet set = imageSetRepository.findById(setId).orElseThrow();
+        assertEquals(IMAGE_COUNT, set.getImages().size());
+
+        for (Image image : set.getImages()) {
+            assertFalse(Hibernate.isInitialized(image.getThumbnails()));
+        }
+
+        // the set and its images, and nothing from the thumbnail table
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(IMAGE_COUNT, statistics.getEntityStatistics(Image.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getEntityStatistics(ImageThumbnail.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getCollectionStatistics(Image.class.getName() + ".thumbnails").getFetchCount());
+    }
+
+    @Test
+    void updatingImageMetadata_neverLoadsOrRewritesThumbnails() {
+        ImageSet set = imageSetRepository.findById(setId).orElseThrow();
+        set.getImages().forEach(image -> image.setImgName(image.getImgName() + "-renamed"));
+        entityManager.flush();
+
+        assertEquals(IMAGE_COUNT, statistics.getEntityStatistics(Image.class.getName()).getUpdateCount());
+        assertEquals(0, statistics.getEntityStatistics(ImageThumbnail.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getEntityStatistics(ImageThumbnail.class.getName()).getUpdateCount());
+    }
+
+    @Test
+    void findWithImagesBySetId_loadsThumbnailRowsOfAllImagesWithOneExtraQuery() {
+        ImageSet set = imageSetRepository.findWithImagesBySetId(setId).orElseThrow();
+        set.getImages().forEach(image -> assertEquals(1, image.getThumbnails().size()));
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void savingLargeSet_insertsImagesAndThumbnailsInJdbcBatches() {
+        imageSetRepository.save(newSet("batched-set"));
+        entityManager.flush();
+
+        assertEquals(IMAGE_COUNT, statistics.getEntityStatistics(Image.class.getName()).getInsertCount());
+        assertEquals(IMAGE_COUNT, statistics.getEntityStatistics(ImageThumbnail.class.getName()).getInsertCount());
+        // one statement per batch of 50 rows plus one sequence call per 50 ids, instead of one INSERT per row
+        assertTrue(statistics.getPrepareStatementCount() <= 2 * (2 * IMAGE_COUNT / 50) + 2,
+                "prepared " + statistics.getPrepareStatementCount() + " statements for " + 2 * IMAGE_COUNT + " rows");
+    }
+}
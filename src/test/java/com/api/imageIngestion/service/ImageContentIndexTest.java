@@ -0,0 +1,143 @@
+package com.api.imageIngestion.service;
+
+import com.api.imageIngestion.entity.ImageContent;
+import com.api.imageIngestion.entity.ThumbnailPointer;
+import com.api.imageIngestion.metrics.IngestionMetrics;
+import com.api.imageIngestion.processing.ImageHeader;
+import com.api.imageIngestion.processing.RenderedThumbnail;
+import com.api.imageIngestion.repository.ImageContentRepository;
+import com.api.imageIngestion.store.ThumbnailStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImageContentIndexTest {
+
+    @Mock
+    private ImageContentRepository repository;
+
+    @Mock
+    private ThumbnailStore thumbnailStore;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ImageContentIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ImageContentIndex(repository, thumbnailStore, new IngestionMetrics(meterRegistry), transactionManager);
+    }
+
+    private static List<RenderedThumbnail> rendered() {
+        byte[] shared = {1, 2, 3};
+        return List.of(new RenderedThumbnail("640", 100, 50, shared), new RenderedThumbnail("150", 100, 50, shared),
+                new RenderedThumbnail("64", 64, 32, new byte[]{4, 5}));
+    }
+
+    @Test
+    void render_concurrentCallsForSameContent_shouldRenderOnce() throws Exception {
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger renders = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<RenderedThumbnail>> leader = pool.submit(() -> index.render("abc", () -> {
+                renders.incrementAndGet();
+                rendering.countDown();
+                await(release);
+                return rendered();
+            }));
+            assertTrue(rendering.await(5, TimeUnit.SECONDS));
+            Future<List<RenderedThumbnail>> follower = pool.submit(() -> index.render("abc", () -> {
+                renders.incrementAndGet();
+                return rendered();
+            }));
+            while (meterRegistry.find("image.ingest.deduplicated").counter() == null) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertSame(leader.get(5, TimeUnit.SECONDS), follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, renders.get());
+            assertEquals(1, meterRegistry.get("image.ingest.deduplicated").tag("result", "coalesced").counter().count());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void render_failure_shouldReachEveryWaiterAndNotBeCached() {
+        assertThrows(IllegalArgumentException.class, () -> index.render("abc", () -> {
+            throw new IllegalArgumentException("bad image");
+        }));
+
+        assertEquals(rendered().size(), index.render("abc", ImageContentIndexTest::rendered).size());
+    }
+
+    @Test
+    void register_newContent_shouldStoreSharedBytesOnceAndCommitEntry() throws Exception {
+        when(repository.findWithThumbnailsByContentHash("abc")).thenReturn(Optional.empty());
+        when(repository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(thumbnailStore.append(eq(0xabcL), any())).thenReturn(new ThumbnailPointer("default", 0, 0L, 3), new ThumbnailPointer("default", 0, 3L, 2));
+
+        ImageContent content = index.register("abc", new ImageHeader("JPEG", 100, 50), rendered());
+
+        verify(thumbnailStore, times(2)).append(eq(0xabcL), any());
+        verify(transactionManager).commit(any());
+        assertEquals(0L, content.getRefCount());
+        assertEquals(content.getThumbnails().get(0).getPointer(), content.getThumbnails().get(1).getPointer());
+        assertEquals(new ThumbnailPointer("default", 0, 3L, 2), content.getThumbnails().get(2).getPointer());
+    }
+
+    @Test
+    void register_contentRegisteredMeanwhile_shouldReturnExistingEntryWithoutStoring() throws Exception {
+        ImageContent existing = ImageContent.builder().contentHash("abc").refCount(4L).build();
+        when(repository.findWithThumbnailsByContentHash("abc")).thenReturn(Optional.of(existing));
+
+        assertSame(existing, index.register("abc", new ImageHeader("JPEG", 100, 50), rendered()));
+        verify(thumbnailStore, never()).append(anyLong(), any());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void register_lostToAnotherInstance_shouldReturnTheirEntryAndReportStoredBytesAsGarbage() throws Exception {
+        ImageContent existing = ImageContent.builder().contentHash("abc").refCount(1L).build();
+        when(repository.findWithThumbnailsByContentHash("abc")).thenReturn(Optional.empty(), Optional.of(existing));
+        when(repository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(thumbnailStore.append(eq(0xabcL), any())).thenReturn(new ThumbnailPointer("default", 0, 0L, 3), new ThumbnailPointer("default", 0, 3L, 2));
+        doThrow(new DataIntegrityViolationException("duplicate content_hash")).when(transactionManager).commit(any());
+
+        assertSame(existing, index.register("abc", new ImageHeader("JPEG", 100, 50), rendered()));
+        assertEquals(5, meterRegistry.get("image.ingest.thumbnail.orphaned").counter().count());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,27 +1,64 @@
 package com.api.imageIngestion.service;
 
+import com.api.imageIngestion.cache.ThumbnailCache;
+import com.api.imageIngestion.config.DecodeBudgetProperties;
+import com.api.imageIngestion.config.ImageProcessingProperties;
+import com.api.imageIngestion.config.ListingProperties;
+import com.api.imageIngestion.config.ThumbnailCacheProperties;
 import com.api.imageIngestion.dto.*;
+import com.api.imageIngestion.entity.ContentThumbnail;
 import com.api.imageIngestion.entity.Image;
+import com.api.imageIngestion.entity.ImageContent;
 import com.api.imageIngestion.entity.ImageSet;
+import com.api.imageIngestion.entity.ImageThumbnail;
+import com.api.imageIngestion.entity.ThumbnailPointer;
+import com.api.imageIngestion.event.ImageSetChangedEvent;
 import com.api.imageIngestion.exception.NotFoundException;
 import com.api.imageIngestion.mapper.ImageSetMapper;
+import com.api.imageIngestion.metrics.IngestionMetrics;
+import com.api.imageIngestion.processing.ContentHash;
+import com.api.imageIngestion.processing.DecodeBudget;
+import com.api.imageIngestion.processing.ImageDecoder;
+import com.api.imageIngestion.processing.ImageProcessingScheduler;
+import com.api.imageIngestion.processing.ThumbnailEncoder;
+import com.api.imageIngestion.processing.ThumbnailRenderer;
+import com.api.imageIngestion.processing.ThumbnailResampler;
+import com.api.imageIngestion.repository.ImageContentRepository;
 import com.api.imageIngestion.repository.ImageRepository;
 import com.api.imageIngestion.repository.ImageSetRepository;
+import com.api.imageIngestion.repository.ImageThumbnailRepository;
+import com.api.imageIngestion.store.ThumbnailStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -39,7 +76,53 @@ class ImageServiceImplTest {
     @Mock
     private ImageSetMapper mapper;
 
-    @InjectMocks
+    @Mock
+    private ThumbnailStore thumbnailStore;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private ImageDecoder imageDecoder = new ImageDecoder();
+
+    @Mock
+    private ImageThumbnailRepository imageThumbnailRepository;
+
+    @Mock
+    private ImageContentRepository imageContentRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private ImageContentIndex contentIndex;
+
+    private final ImageProcessingProperties properties = new ImageProcessingProperties();
+
+    private final ListingProperties listingProperties = new ListingProperties();
+
+    @Spy
+    private ThumbnailResampler resampler = new ThumbnailResampler(properties);
+
+    private final ThumbnailCache thumbnailCache = new ThumbnailCache(new ThumbnailCacheProperties());
+
+    private final ImageProcessingScheduler scheduler = new ImageProcessingScheduler(4, 256);
+
+    @TempDir
+    private Path uploadDirectory;
+
+    private UploadSpool uploadSpool;
+
+    private final DecodeBudgetProperties decodeBudgetProperties = new DecodeBudgetProperties();
+
+    private DecodeBudget decodeBudget;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final IngestionMetrics metrics = new IngestionMetrics(meterRegistry);
+
     private ImageServiceImpl imageService;
 
     private MultipartFile mockFile;
@@ -49,15 +132,23 @@ class ImageServiceImplTest {
 
     @BeforeEach
     void setUp() throws Exception {
+        properties.setUploadDirectory(uploadDirectory.toString());
+        uploadSpool = new UploadSpool(properties);
+        decodeBudget = new DecodeBudget(decodeBudgetProperties);
+        contentIndex = new ImageContentIndex(imageContentRepository, thumbnailStore, metrics, transactionManager);
+        lenient().when(imageContentRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(thumbnailStore.append(anyLong(), any())).thenReturn(new ThumbnailPointer("default", 0, 0L, 1));
+        imageService = new ImageServiceImpl(imageSetRepository, imageRepository, mapper,
+                imageDecoder, imageThumbnailRepository, new ThumbnailRenderer(resampler, new ThumbnailEncoder(), metrics, properties), properties, listingProperties,
+                new ThumbnailReader(thumbnailStore, thumbnailCache), contentIndex, imageContentRepository, uploadSpool, decodeBudget, metrics, eventPublisher, scheduler, entityManager, transactionManager);
+
         // Create a valid JPEG from a BufferedImage
         BufferedImage testImage = new BufferedImage(100, 50, BufferedImage.TYPE_INT_RGB);
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         javax.imageio.ImageIO.write(testImage, "jpg", baos);
         byte[] validJpeg = baos.toByteArray();
 
-        mockFile = mock(MultipartFile.class);
-        lenient().when(mockFile.isEmpty()).thenReturn(false);
-        lenient().when(mockFile.getBytes()).thenReturn(validJpeg);
+        mockFile = new MockMultipartFile("files", "test.jpg", "image/jpeg", validJpeg);
 
         DimensionsDTO dim = DimensionsDTO.builder().width(100).height(50).aspectRatio(2.0).build();
         ImageCreateRequestDTO imgReq = ImageCreateRequestDTO.builder()
@@ -124,6 +215,11 @@ class ImageServiceImplTest {
         assertEquals("test.jpg", result.getImages().get(0).getImgName());
         assertNotNull(result.getImages().get(0).getThumbnail());
         verify(imageSetRepository, times(1)).save(any());
+        // 100px source: the 640, 320 and 150 profiles collapse onto one stored copy, 64 gets its own
+        verify(thumbnailStore, times(2)).append(anyLong(), any());
+        assertEquals(List.of("640", "320", "150", "64"),
+                savedImageSet.getImages().get(0).getThumbnails().stream().map(ImageThumbnail::getProfile).toList());
+        verify(eventPublisher).publishEvent(new ImageSetChangedEvent(1L));
     }
 
     @Test
@@ -162,11 +258,9 @@ class ImageServiceImplTest {
 
     @Test
     void createImageSet_withInvalidImageFile_shouldThrowIllegalArgumentException() throws Exception {
-        MultipartFile invalidFile = mock(MultipartFile.class);
-        lenient().when(invalidFile.isEmpty()).thenReturn(false);
-        when(invalidFile.getBytes()).thenReturn(new byte[]{0x00, 0x01, 0x02});
+        MultipartFile invalidFile = new MockMultipartFile("files", "invalid.jpg", "image/jpeg", new byte[]{0x00, 0x01, 0x02});
 
-        when(mapper.toImageEntity(any())).thenReturn(
+        lenient().when(mapper.toImageEntity(any())).thenReturn(
                 Image.builder().imgName("invalid.jpg").build()
         );
 
@@ -175,14 +269,318 @@ class ImageServiceImplTest {
         );
     }
 
+    @Test
+    void createImageSet_shouldRecordStageTimersAndSizes() throws Exception {
+        when(mapper.toImageEntity(any())).thenReturn(Image.builder().imgName("test.jpg").build());
+        when(imageSetRepository.save(any())).thenReturn(savedImageSet);
+
+        imageService.createImageSet(requestDTO, List.of(mockFile));
+
+        assertEquals(1, meterRegistry.get("image.ingest.probe").tag("format", "jpeg").timer().count());
+        assertEquals(1, meterRegistry.get("image.ingest.decode").tag("format", "jpeg").timer().count());
+        assertEquals(mockFile.getSize(), meterRegistry.get("image.ingest.input.bytes").summary().totalAmount());
+        assertEquals(5000, meterRegistry.get("image.ingest.input.pixels").summary().totalAmount());
+        // 640, 320 and 150 collapse onto one rendition of the 100px source, so only two resizes and encodes happen
+        assertEquals(1, meterRegistry.get("image.ingest.resize").tag("profile", "640").timer().count());
+        assertEquals(1, meterRegistry.get("image.ingest.encode").tag("profile", "64").timer().count());
+        assertEquals(2, meterRegistry.get("image.ingest.thumbnail.bytes").summaries().size());
+        assertEquals(1, meterRegistry.get("image.ingest.persist").timer().count());
+        assertEquals(1, meterRegistry.get("image.ingest.store").timer().count());
+        // the batched inserts run at this flush, which the persist timer covers
+        verify(imageRepository).flush();
+    }
+
+    @Test
+    void createImageSet_withInvalidImageFile_shouldCountRejection() {
+        MultipartFile invalidFile = new MockMultipartFile("files", "invalid.jpg", "image/jpeg", new byte[]{0x00, 0x01, 0x02});
+
+        assertThrows(IllegalArgumentException.class,
+                () -> imageService.createImageSet(requestDTO, List.of(invalidFile))
+        );
+        assertEquals(1, meterRegistry.get("image.ingest.rejections").tag("cause", "unreadable").counter().count());
+        assertNull(meterRegistry.find("image.ingest.probe").timer());
+    }
+
+    @Test
+    void createImageSet_shouldRemoveSpooledUploadsAfterProcessing() throws Exception {
+        when(mapper.toImageEntity(any())).thenReturn(Image.builder().imgName("test.jpg").build());
+        when(imageSetRepository.save(any())).thenReturn(savedImageSet);
+
+        imageService.createImageSet(requestDTO, List.of(mockFile));
+
+        try (var remaining = Files.list(uploadDirectory)) {
+            assertEquals(0, remaining.count());
+        }
+    }
+
+    @Test
+    void createImageSet_withInvalidSecondFile_shouldFailBeforeDecodingAnyImage() throws Exception {
+        MultipartFile invalidFile = new MockMultipartFile("files", "invalid.jpg", "image/jpeg", new byte[]{0x00, 0x01, 0x02});
+
+        ImageSetCreateRequestDTO req = ImageSetCreateRequestDTO.builder()
+                .imageSetName("test-album")
+                .images(List.of(requestDTO.getImages().get(0), requestDTO.getImages().get(0)))
+                .build();
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> imageService.createImageSet(req, List.of(mockFile, invalidFile))
+        );
+        assertTrue(ex.getMessage().startsWith("Failed to parse image at index 1"));
+        verify(imageDecoder, never()).decode(any(Path.class));
+        verify(imageSetRepository, never()).save(any());
+    }
+
+    @Test
+    void createImageSet_withImageAbovePixelCap_shouldRejectBeforeDecoding() throws Exception {
+        decodeBudgetProperties.setMaxImagePixels(1000);
+        decodeBudget = new DecodeBudget(decodeBudgetProperties);
+        imageService = new ImageServiceImpl(imageSetRepository, imageRepository, mapper,
+                imageDecoder, imageThumbnailRepository, new ThumbnailRenderer(resampler, new ThumbnailEncoder(), metrics, properties), properties, listingProperties,
+                new ThumbnailReader(thumbnailStore, thumbnailCache), contentIndex, imageContentRepository, uploadSpool, decodeBudget, metrics, eventPublisher, scheduler, entityManager, transactionManager);
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> imageService.createImageSet(requestDTO, List.of(mockFile))
+        );
+        assertTrue(ex.getMessage().contains("100x50"));
+        verify(imageDecoder, never()).decode(any(Path.class));
+        assertEquals(0, decodeBudget.getReservedBytes());
+    }
+
+    @Test
+    void createImageSet_shouldReleaseDecodeBudgetAfterRendering() throws Exception {
+        when(mapper.toImageEntity(any())).thenReturn(Image.builder().imgName("test.jpg").build());
+        when(imageSetRepository.save(any())).thenReturn(savedImageSet);
 
+        imageService.createImageSet(requestDTO, List.of(mockFile));
+
+        assertEquals(0, decodeBudget.getReservedBytes());
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void createImageSet_withManyImages_shouldKeepRequestOrder() throws Exception {
+        int count = 12;
+        List<ImageCreateRequestDTO> imgReqs = new ArrayList<>();
+        List<MultipartFile> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            imgReqs.add(ImageCreateRequestDTO.builder().imgName("img-" + i).build());
+            BufferedImage img = new BufferedImage(40 + i * 10, 30, BufferedImage.TYPE_INT_RGB);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            javax.imageio.ImageIO.write(img, "jpg", baos);
+            files.add(new MockMultipartFile("files", "img-" + i + ".jpg", "image/jpeg", baos.toByteArray()));
+        }
+        when(mapper.toImageEntity(any())).thenAnswer(inv ->
+                Image.builder().imgName(((ImageCreateRequestDTO) inv.getArgument(0)).getImgName()).build());
+        when(imageSetRepository.save(any())).thenAnswer(inv -> {
+            ImageSet set = inv.getArgument(0);
+            for (int i = 0; i < set.getImages().size(); i++) {
+                set.getImages().get(i).setImgId((long) i + 1);
+            }
+            return set;
+        });
+
+        imageService.createImageSet(ImageSetCreateRequestDTO.builder()
+                .imageSetName("ordered")
+                .images(imgReqs)
+                .build(), files);
+
+        verify(imageSetRepository).save(argThat(set -> {
+            for (int i = 0; i < count; i++) {
+                Image img = set.getImages().get(i);
+                if (!img.getImgName().equals("img-" + i) || img.getWidth() != 40 + i * 10 || img.getThumbnail() == null) {
+                    return false;
+                }
+            }
+            return true;
+        }));
+    }
+
+    @Test
+    void createImageSet_whenThumbnailFails_shouldReportFailingIndex() throws Exception {
+        BufferedImage img = new BufferedImage(30, 30, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        javax.imageio.ImageIO.write(img, "jpg", baos);
+        MultipartFile second = new MockMultipartFile("files", "second.jpg", "image/jpeg", baos.toByteArray());
+        when(mapper.toImageEntity(any())).thenAnswer(inv -> Image.builder().imgName("x").build());
+        doAnswer(inv -> {
+            BufferedImage src = inv.getArgument(0);
+            if (src.getWidth() == 30) {
+                throw new IllegalStateException("boom");
+            }
+            return inv.callRealMethod();
+        }).when(resampler).resize(any(), anyInt(), anyInt());
+
+        ImageSetCreateRequestDTO req = ImageSetCreateRequestDTO.builder()
+                .imageSetName("test-album")
+                .images(List.of(requestDTO.getImages().get(0), requestDTO.getImages().get(0)))
+                .build();
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> imageService.createImageSet(req, List.of(mockFile, second))
+        );
+        assertEquals("Failed to generate thumbnail for image at index 1: boom", ex.getMessage());
+        verify(imageSetRepository, never()).save(any());
+    }
+
+    @Test
+    void createImageSet_whenOneImageFails_shouldWaitForRunningImagesBeforeFailing() throws Exception {
+        BufferedImage img = new BufferedImage(30, 30, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        javax.imageio.ImageIO.write(img, "jpg", baos);
+        MultipartFile second = new MockMultipartFile("files", "second.jpg", "image/jpeg", baos.toByteArray());
+        when(mapper.toImageEntity(any())).thenAnswer(inv -> Image.builder().imgName("x").build());
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        doAnswer(inv -> {
+            BufferedImage src = inv.getArgument(0);
+            if (src.getWidth() == 30) {
+                slowStarted.await();
+                throw new IllegalStateException("boom");
+            }
+            running.incrementAndGet();
+            try {
+                slowStarted.countDown();
+                Thread.sleep(200);
+                return inv.callRealMethod();
+            } finally {
+                running.decrementAndGet();
+            }
+        }).when(resampler).resize(any(), anyInt(), anyInt());
+
+        ImageSetCreateRequestDTO req = ImageSetCreateRequestDTO.builder()
+                .imageSetName("test-album")
+                .images(List.of(requestDTO.getImages().get(0), requestDTO.getImages().get(0)))
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> imageService.createImageSet(req, List.of(mockFile, second)));
+        assertEquals(0, running.get());
+        assertEquals(0, decodeBudget.getReservedBytes());
+        try (var remaining = Files.list(uploadDirectory)) {
+            assertEquals(0, remaining.count());
+        }
+    }
+
+    @Test
+    void importArchive_whenAnEntryFails_shouldWaitForRunningRendersBeforeDeletingEntries() throws Exception {
+        BufferedImage img = new BufferedImage(30, 30, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream small = new ByteArrayOutputStream();
+        javax.imageio.ImageIO.write(img, "jpg", small);
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            zip.putNextEntry(new ZipEntry("bad.jpg"));
+            zip.write(small.toByteArray());
+            zip.putNextEntry(new ZipEntry("slow.jpg"));
+            zip.write(mockFile.getBytes());
+        }
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        doAnswer(inv -> {
+            BufferedImage src = inv.getArgument(0);
+            if (src.getWidth() == 30) {
+                slowStarted.await();
+                throw new IllegalStateException("boom");
+            }
+            running.incrementAndGet();
+            try {
+                slowStarted.countDown();
+                Thread.sleep(200);
+                return inv.callRealMethod();
+            } finally {
+                running.decrementAndGet();
+            }
+        }).when(resampler).resize(any(), anyInt(), anyInt());
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> imageService.importArchive("zip", new ByteArrayInputStream(archive.toByteArray())));
+        assertTrue(ex.getMessage().startsWith("Archive entry 'bad.jpg'"));
+        assertEquals(0, running.get());
+        try (var remaining = Files.list(uploadDirectory)) {
+            assertEquals(0, remaining.count());
+        }
+    }
+
+    @Test
+    void createImageSet_shouldDecodeEachImageExactlyOnce() throws Exception {
+        when(mapper.toImageEntity(any())).thenReturn(Image.builder().imgName("test.jpg").build());
+        when(imageSetRepository.save(any())).thenReturn(savedImageSet);
+        when(mapper.toResponseDTO(savedImageSet)).thenReturn(responseDTO);
+
+        imageService.createImageSet(requestDTO, List.of(mockFile));
+
+        verify(imageDecoder, times(1)).probe(any(Path.class));
+        verify(imageDecoder, times(1)).decode(any(Path.class));
+        verify(imageDecoder, never()).decode(any(byte[].class));
+    }
+
+
+
+    @Test
+    void createImageSet_withKnownContent_shouldShareStoredThumbnailsWithoutDecoding() throws Exception {
+        String hash = ContentHash.sha256Hex(mockFile.getBytes());
+        ImageContent known = ImageContent.builder()
+                .contentHash(hash).format("JPEG").width(100).height(50).refCount(3L)
+                .thumbnails(List.of(
+                        ContentThumbnail.builder().profile("150").width(100).height(50)
+                                .pointer(new ThumbnailPointer("default", 2, 4096L, 300)).thumbnailHash("t150").build(),
+                        ContentThumbnail.builder().profile("64").width(64).height(32)
+                                .pointer(new ThumbnailPointer("default", 2, 8192L, 120)).thumbnailHash("t64").build()))
+                .build();
+        when(imageContentRepository.findWithThumbnailsByContentHashIn(Set.of(hash))).thenReturn(List.of(known));
+        when(thumbnailStore.readBytes(any())).thenReturn(new byte[]{9});
+        when(mapper.toImageEntity(any())).thenReturn(Image.builder().imgName("test.jpg").build());
+        when(imageSetRepository.save(any())).thenReturn(savedImageSet);
+
+        imageService.createImageSet(requestDTO, List.of(mockFile));
+
+        verify(imageDecoder, never()).probe(any(Path.class));
+        verify(imageDecoder, never()).decode(any(Path.class));
+        verify(thumbnailStore, never()).append(anyLong(), any());
+        verify(imageContentRepository).addReferences(hash, 1L);
+        List<ImageThumbnail> thumbnails = savedImageSet.getImages().get(0).getThumbnails();
+        assertEquals(List.of("150", "64"), thumbnails.stream().map(ImageThumbnail::getProfile).toList());
+        assertEquals(new ThumbnailPointer("default", 2, 8192L, 120), thumbnails.get(1).getPointer());
+        assertEquals("t64", thumbnails.get(1).getContentHash());
+        assertEquals(1, meterRegistry.get("image.ingest.deduplicated").tag("result", "known").counter().count());
+    }
+
+    @Test
+    void createImageSet_withSameFileTwice_shouldRenderAndStoreItOnce() throws Exception {
+        Image first = Image.builder().imgId(1L).imgName("a.jpg").build();
+        Image second = Image.builder().imgId(2L).imgName("b.jpg").build();
+        ImageSet saved = ImageSet.builder().setId(1L).setName("test-album").images(List.of(first, second)).build();
+        when(mapper.toImageEntity(any())).thenAnswer(inv -> Image.builder().imgName("test.jpg").build());
+        when(imageSetRepository.save(any())).thenReturn(saved);
+
+        ImageSetCreateRequestDTO req = ImageSetCreateRequestDTO.builder()
+                .imageSetName("test-album")
+                .images(List.of(requestDTO.getImages().get(0), requestDTO.getImages().get(0)))
+                .build();
+        imageService.createImageSet(req, List.of(mockFile, new MockMultipartFile("files", "copy.jpg", "image/jpeg", mockFile.getBytes())));
+
+        verify(imageDecoder, times(1)).probe(any(Path.class));
+        verify(imageDecoder, times(1)).decode(any(Path.class));
+        // the content of the whole request is looked up in one query
+        verify(imageContentRepository, times(1)).findWithThumbnailsByContentHashIn(any());
+        // 100px source: one copy for the collapsed 640/320/150 profiles and one for 64, stored once for both images
+        verify(thumbnailStore, times(2)).append(anyLong(), any());
+        // both images count against their one content in a single update
+        verify(imageContentRepository).addReferences(anyString(), eq(2L));
+        verify(imageContentRepository, times(1)).addReferences(anyString(), anyLong());
+        assertEquals(first.getContentHash(), second.getContentHash());
+        assertEquals(first.getThumbnails().get(3).getPointer(), second.getThumbnails().get(3).getPointer());
+        assertNotNull(second.getThumbnail());
+    }
 
     @Test
     /**
      * Test that getImageSet returns the correct DTO when a valid ID is provided, and verify repository interaction
      */
     void getImageSet_withValidId_shouldReturnDTO() {
-        when(imageSetRepository.findById(1L)).thenReturn(Optional.of(savedImageSet));
+        when(imageSetRepository.findWithImagesBySetId(1L)).thenReturn(Optional.of(savedImageSet));
         when(mapper.toResponseDTO(savedImageSet)).thenReturn(responseDTO);
 
         ImageSetResponseDTO result = imageService.getImageSet(1L);
@@ -190,7 +588,63 @@ class ImageServiceImplTest {
         assertNotNull(result);
         assertEquals(1L, result.getImageSetId());
         assertEquals("test-album", result.getImageSetName());
-        verify(imageSetRepository, times(1)).findById(1L);
+        verify(imageSetRepository, times(1)).findWithImagesBySetId(1L);
+    }
+
+    @Test
+    void getImageSet_shouldResolveThumbnailsFromStore() throws Exception {
+        Image stored = savedImageSet.getImages().get(0);
+        stored.setThumbnail(null);
+        ThumbnailPointer pointer = new ThumbnailPointer("default", 1, 16L, 3);
+        stored.getThumbnails().add(ImageThumbnail.builder()
+                .profile("64")
+                .pointer(new ThumbnailPointer("default", 1, 0L, 2))
+                .contentHash("def")
+                .build());
+        stored.getThumbnails().add(ImageThumbnail.builder()
+                .profile("150")
+                .pointer(pointer)
+                .contentHash("abc")
+                .build());
+        when(imageSetRepository.findWithImagesBySetId(1L)).thenReturn(Optional.of(savedImageSet));
+        when(thumbnailStore.readBytes(pointer)).thenReturn(new byte[]{7, 8, 9});
+        when(mapper.toResponseDTO(savedImageSet)).thenReturn(responseDTO);
+
+        imageService.getImageSet(1L);
+
+        assertArrayEquals(new byte[]{7, 8, 9}, stored.getThumbnail());
+
+        // second read is served from the thumbnail cache
+        stored.setThumbnail(null);
+        imageService.getImageSet(1L);
+        assertArrayEquals(new byte[]{7, 8, 9}, stored.getThumbnail());
+        verify(thumbnailStore, times(1)).readBytes(any());
+        assertEquals(1, thumbnailCache.stats().hits());
+    }
+
+    @Test
+    void getImageSet_withSharedContent_shouldCacheThumbnailOnce() throws Exception {
+        ThumbnailPointer pointer = new ThumbnailPointer("default", 1, 16L, 3);
+        Image first = Image.builder().imgId(1L).imgName("a.jpg").build();
+        Image second = Image.builder().imgId(2L).imgName("b.jpg").build();
+        for (Image image : List.of(first, second)) {
+            image.getThumbnails().add(ImageThumbnail.builder()
+                    .profile("150")
+                    .pointer(pointer)
+                    .contentHash("abc")
+                    .build());
+        }
+        ImageSet shared = ImageSet.builder().setId(1L).setName("test-album").images(List.of(first, second)).build();
+        when(imageSetRepository.findWithImagesBySetId(1L)).thenReturn(Optional.of(shared));
+        when(thumbnailStore.readBytes(pointer)).thenReturn(new byte[]{7, 8, 9});
+        when(mapper.toResponseDTO(shared)).thenReturn(responseDTO);
+
+        imageService.getImageSet(1L);
+
+        assertArrayEquals(new byte[]{7, 8, 9}, first.getThumbnail());
+        assertArrayEquals(new byte[]{7, 8, 9}, second.getThumbnail());
+        verify(thumbnailStore, times(1)).readBytes(any());
+        assertEquals(1, thumbnailCache.stats().entries());
     }
 
     @Test
@@ -198,11 +652,43 @@ class ImageServiceImplTest {
      * Test that getImageSet throws NotFoundException when an invalid ID is provided, and verify repository interaction
      */
     void getImageSet_withInvalidId_shouldThrowNotFoundException() {
-        when(imageSetRepository.findById(999L)).thenReturn(Optional.empty());
+        when(imageSetRepository.findWithImagesBySetId(999L)).thenReturn(Optional.empty());
 
         assertThrows(NotFoundException.class,
                 () -> imageService.getImageSet(999L)
         );
-        verify(imageSetRepository, times(1)).findById(999L);
+        verify(imageSetRepository, times(1)).findWithImagesBySetId(999L);
+    }
+
+    @Test
+    /**
+     * Test that listImageSets caps the requested page size at the configured maximum and skips the count query for an empty page
+     */
+    void listImageSets_withLimitAboveMaximum_shouldFetchMaximumPlusOne() {
+        when(imageSetRepository.findPage(any())).thenReturn(List.of());
+
+        ImageSetPageDTO page = imageService.listImageSets(null, null, 10_000);
+
+        assertTrue(page.getImageSets().isEmpty());
+        assertNull(page.getNextCursor());
+        verify(imageSetRepository).findPage(Limit.of(listingProperties.getMaxPageSize() + 1));
+        verify(imageRepository, never()).countBySetIds(any());
+    }
+
+    @Test
+    /**
+     * Test that an empty image page only looks the set up to tell an exhausted set from a missing one
+     */
+    void listImageMetadata_withEmptyPage_shouldCheckSetExistence() {
+        when(imageRepository.findMetadataPage(eq(1L), eq(5L), any())).thenReturn(List.of());
+        when(imageSetRepository.existsById(1L)).thenReturn(true);
+        when(imageRepository.findMetadataPage(eq(999L), eq(0L), any())).thenReturn(List.of());
+        when(imageSetRepository.existsById(999L)).thenReturn(false);
+
+        imageService.listImageMetadata(1L, 5L, null);
+        verify(mapper).toImageMetadataPageDTO(1L, List.of(), List.of(), null);
+        verify(imageThumbnailRepository, never()).findSizesByImgIds(any());
+
+        assertThrows(NotFoundException.class, () -> imageService.listImageMetadata(999L, null, null));
     }
 }
@@ -0,0 +1,126 @@
+package com.api.imageIngestion.service;
+
+import com.api.imageIngestion.config.ResponseCacheProperties;
+import com.api.imageIngestion.dto.ImageSetMetadataResponseDTO;
+import com.api.imageIngestion.dto.ImageSetResponseDTO;
+import com.api.imageIngestion.event.ImageSetChangedEvent;
+import com.api.imageIngestion.exception.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImageSetResponseCacheTest {
+
+    @Mock
+    private ImageService imageService;
+
+    private ResponseCacheProperties properties;
+    private ImageSetResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ResponseCacheProperties();
+        cache = new ImageSetResponseCache(imageService, JsonMapper.builder().build(), properties);
+    }
+
+    private static ImageSetResponseDTO set(long id, String name) {
+        return ImageSetResponseDTO.builder().imageSetId(id).imageSetName(name).images(List.of()).build();
+    }
+
+    @Test
+    void getImageSetJson_servesRepeatReadsFromCache() {
+        when(imageService.getImageSet(1L)).thenReturn(set(1L, "album"));
+
+        byte[] first = cache.getImageSetJson(1L);
+        byte[] second = cache.getImageSetJson(1L);
+
+        assertSame(first, second);
+        assertTrue(new String(first, StandardCharsets.UTF_8).contains("\"imageSetName\":\"album\""));
+        verify(imageService, times(1)).getImageSet(1L);
+        assertEquals(1, cache.stats().hits());
+    }
+
+    @Test
+    void fullAndMetadataViews_areCachedSeparately() {
+        when(imageService.getImageSet(1L)).thenReturn(set(1L, "album"));
+        when(imageService.getImageSetMetadata(1L)).thenReturn(
+                ImageSetMetadataResponseDTO.builder().imageSetId(1L).imageSetName("meta").build());
+
+        cache.getImageSetJson(1L);
+        byte[] metadata = cache.getImageSetMetadataJson(1L);
+
+        assertTrue(new String(metadata, StandardCharsets.UTF_8).contains("\"meta\""));
+        assertEquals(2, cache.stats().entries());
+    }
+
+    @Test
+    void changeEvent_invalidatesOnlyThatSet() {
+        when(imageService.getImageSet(1L)).thenReturn(set(1L, "old"), set(1L, "new"));
+        when(imageService.getImageSet(2L)).thenReturn(set(2L, "other"));
+        cache.getImageSetJson(1L);
+        cache.getImageSetJson(2L);
+
+        cache.onImageSetChanged(new ImageSetChangedEvent(1L));
+
+        assertTrue(new String(cache.getImageSetJson(1L), StandardCharsets.UTF_8).contains("\"new\""));
+        cache.getImageSetJson(2L);
+        verify(imageService, times(1)).getImageSet(2L);
+    }
+
+    @Test
+    void entryOlderThanRequestedVersion_isRenderedAgain() {
+        when(imageService.getImageSet(1L)).thenReturn(set(1L, "old"), set(1L, "new"));
+        cache.getImageSetJson(1L, 3);
+
+        // a write has committed (version 4) but its invalidation has not run yet
+        assertTrue(new String(cache.getImageSetJson(1L, 4), StandardCharsets.UTF_8).contains("\"new\""));
+        assertTrue(new String(cache.getImageSetJson(1L, 4), StandardCharsets.UTF_8).contains("\"new\""));
+        assertTrue(new String(cache.getImageSetJson(1L, 3), StandardCharsets.UTF_8).contains("\"new\""));
+        verify(imageService, times(2)).getImageSet(1L);
+        assertEquals(1, cache.stats().entries());
+    }
+
+    @Test
+    void renderRacingWithWrite_isNotCached() {
+        when(imageService.getImageSet(1L)).thenAnswer(inv -> {
+            // a write to the set commits while this read is still rendering
+            cache.invalidate(1L);
+            return set(1L, "stale");
+        });
+
+        cache.getImageSetJson(1L);
+
+        assertEquals(0, cache.stats().entries());
+        assertEquals(1, cache.stats().rejections());
+    }
+
+    @Test
+    void totalSize_staysWithinBudget() {
+        properties.setMaxBytes(300);
+        cache = new ImageSetResponseCache(imageService, JsonMapper.builder().build(), properties);
+        for (long id = 0; id < 20; id++) {
+            when(imageService.getImageSet(id)).thenReturn(set(id, "set-" + id));
+            cache.getImageSetJson(id);
+            assertTrue(cache.stats().usedBytes() <= 300);
+        }
+        assertTrue(cache.stats().evictions() > 0);
+    }
+
+    @Test
+    void notFound_isPropagatedAndNotCached() {
+        when(imageService.getImageSet(9L)).thenThrow(new NotFoundException("ImageSet not found: 9"));
+
+        assertThrows(NotFoundException.class, () -> cache.getImageSetJson(9L));
+        assertEquals(0, cache.stats().entries());
+    }
+}
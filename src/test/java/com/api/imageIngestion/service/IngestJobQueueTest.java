@@ -0,0 +1,108 @@
+package com.api.imageIngestion.service;
+
+import com.api.imageIngestion.config.IngestJobProperties;
+import com.api.imageIngestion.entity.IngestItemStatus;
+import com.api.imageIngestion.entity.IngestJobItem;
+import com.api.imageIngestion.repository.IngestJobItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IngestJobQueueTest {
+
+    @Mock
+    private IngestJobItemRepository itemRepository;
+
+    @Mock
+    private ImageService imageService;
+
+    @Mock
+    private IngestSpool spool;
+
+    private IngestJobQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new IngestJobQueue(itemRepository, imageService, spool, new IngestJobProperties());
+    }
+
+    private static IngestJobItem item(long id, IngestItemStatus status, int attempts) {
+        return IngestJobItem.builder().itemId(id).itemIndex(0).imgId(100 + id).spoolPath("job-1/" + id + ".upload")
+                .status(status).attempts(attempts).build();
+    }
+
+    @Test
+    void lease_marksItemsLeasedToOwnerAndCountsTheAttempt() {
+        IngestJobItem pending = item(1, IngestItemStatus.PENDING, 0);
+        when(itemRepository.findLeasable(any(), any())).thenReturn(List.of(pending));
+
+        List<IngestJobItem> leased = queue.lease("node-a", 4);
+
+        assertEquals(List.of(pending), leased);
+        assertEquals(IngestItemStatus.LEASED, pending.getStatus());
+        assertEquals("node-a", pending.getLeaseOwner());
+        assertEquals(1, pending.getAttempts());
+        assertTrue(pending.getLeaseExpiresAt().isAfter(LocalDateTime.now()));
+        verifyNoInteractions(spool);
+    }
+
+    @Test
+    void lease_failsExpiredItemThatUsedUpItsAttempts() {
+        IngestJobItem exhausted = item(1, IngestItemStatus.LEASED, 3);
+        exhausted.setLeaseOwner("crashed-node");
+        when(itemRepository.findLeasable(any(), any())).thenReturn(List.of(exhausted));
+
+        assertTrue(queue.lease("node-a", 4).isEmpty());
+        assertEquals(IngestItemStatus.FAILED, exhausted.getStatus());
+        assertNull(exhausted.getLeaseOwner());
+        verify(spool).delete("job-1/1.upload");
+    }
+
+    @Test
+    void fail_releasesForRetryWhileAttemptsRemain() {
+        IngestJobItem leased = item(1, IngestItemStatus.LEASED, 1);
+        when(itemRepository.release(eq(1L), eq("node-a"), any(), any())).thenReturn(1);
+
+        assertFalse(queue.fail(leased, "node-a", new IOException("disk hiccup")));
+        verify(itemRepository).release(1L, "node-a", IngestItemStatus.PENDING, "disk hiccup");
+    }
+
+    @Test
+    void fail_withUndecodableImage_failsWithoutRetry() {
+        IngestJobItem leased = item(1, IngestItemStatus.LEASED, 1);
+        when(itemRepository.release(eq(1L), eq("node-a"), any(), any())).thenReturn(1);
+
+        assertTrue(queue.fail(leased, "node-a", new IllegalArgumentException("Failed to parse image at index 0")));
+        verify(itemRepository).release(1L, "node-a", IngestItemStatus.FAILED, "Failed to parse image at index 0");
+    }
+
+    @Test
+    void registerContent_rendersTheSpooledUpload() throws Exception {
+        IngestJobItem leased = item(1, IngestItemStatus.LEASED, 1);
+        when(spool.resolve(leased.getSpoolPath())).thenReturn(Path.of("job-1/1.upload"));
+        when(imageService.registerStoredContent(0, Path.of("job-1/1.upload"))).thenReturn("abc");
+
+        assertEquals("abc", queue.registerContent(leased));
+    }
+
+    @Test
+    void complete_withLostLease_throwsSoTheWorkRollsBack() {
+        IngestJobItem leased = item(1, IngestItemStatus.LEASED, 1);
+        when(itemRepository.release(1L, "node-a", IngestItemStatus.DONE, null)).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> queue.complete(leased, "node-a", "abc"));
+        verify(imageService).completeStoredImage(101L, "abc");
+    }
+}
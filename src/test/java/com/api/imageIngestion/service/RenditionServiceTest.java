@@ -0,0 +1,164 @@
+package com.api.imageIngestion.service;
+
+import com.api.imageIngestion.config.ImageProcessingProperties;
+import com.api.imageIngestion.config.RenditionProperties;
+import com.api.imageIngestion.entity.ImageThumbnail;
+import com.api.imageIngestion.exception.NotFoundException;
+import com.api.imageIngestion.metrics.IngestionMetrics;
+import com.api.imageIngestion.processing.FitMode;
+import com.api.imageIngestion.processing.ImageDecoder;
+import com.api.imageIngestion.processing.ImageProcessingScheduler;
+import com.api.imageIngestion.processing.ThumbnailEncoder;
+import com.api.imageIngestion.processing.ThumbnailRenderer;
+import com.api.imageIngestion.processing.ThumbnailResampler;
+import com.api.imageIngestion.repository.ImageThumbnailRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RenditionServiceTest {
+
+    @Mock
+    private ImageThumbnailRepository imageThumbnailRepository;
+
+    @Mock
+    private ThumbnailReader thumbnailReader;
+
+    private final ImageProcessingScheduler scheduler = new ImageProcessingScheduler(2, 16);
+    private ImageDecoder imageDecoder;
+    private RenditionService renditionService;
+    private ImageThumbnail source;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ImageProcessingProperties processingProperties = new ImageProcessingProperties();
+        imageDecoder = spy(new ImageDecoder());
+        renditionService = new RenditionService(imageThumbnailRepository, thumbnailReader, imageDecoder,
+                new ThumbnailRenderer(new ThumbnailResampler(processingProperties), new ThumbnailEncoder(),
+                        new IngestionMetrics(new SimpleMeterRegistry()), processingProperties),
+                scheduler, new RenditionProperties());
+
+        source = ImageThumbnail.builder().thumbnailId(10L).profile("640").width(640).height(320)
+                .contentHash("ab".repeat(32)).build();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(640, 320, BufferedImage.TYPE_INT_RGB), "jpg", baos);
+        lenient().when(thumbnailReader.read(any())).thenReturn(baos.toByteArray());
+        lenient().when(imageThumbnailRepository.findFirstByImageImgIdAndImageImageSetSetIdOrderByWidthDesc(7L, 1L))
+                .thenReturn(Optional.of(source));
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void resolve_snapsRequestedSizeUpToBucket() {
+        RenditionService.Rendition rendition = renditionService.resolve(1L, 7L, 190, null, null);
+
+        assertEquals(200, rendition.width());
+        assertEquals(0, rendition.height());
+        assertEquals(FitMode.CONTAIN, rendition.fit());
+        // nearby sizes land on the same bucket and therefore the same ETag
+        assertEquals(rendition.etag(), renditionService.resolve(1L, 7L, 161, null, FitMode.CONTAIN).etag());
+        assertNotEquals(rendition.etag(), renditionService.resolve(1L, 7L, 190, 190, FitMode.COVER).etag());
+    }
+
+    @Test
+    void resolve_rejectsMissingOrNonPositiveSize() {
+        assertThrows(IllegalArgumentException.class, () -> renditionService.resolve(1L, 7L, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> renditionService.resolve(1L, 7L, 0, 100, null));
+    }
+
+    @Test
+    void resolve_unknownImage_throwsNotFound() {
+        assertThrows(NotFoundException.class, () -> renditionService.resolve(2L, 7L, 100, 100, null));
+    }
+
+    @Test
+    void render_servesRepeatRequestsFromCache() throws Exception {
+        RenditionService.Rendition rendition = renditionService.resolve(1L, 7L, 200, 200, FitMode.COVER);
+
+        byte[] first = renditionService.render(rendition);
+        byte[] second = renditionService.render(rendition);
+
+        assertArrayEquals(first, second);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(first));
+        assertEquals(200, image.getWidth());
+        assertEquals(200, image.getHeight());
+        verify(imageDecoder, times(1)).decode(any(byte[].class));
+        assertEquals(1, renditionService.stats().hits());
+    }
+
+    @Test
+    void render_concurrentIdenticalRequests_renderOnce() throws Exception {
+        RenditionService.Rendition rendition = renditionService.resolve(1L, 7L, 320, null, null);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return invocation.callRealMethod();
+        }).when(imageDecoder).decode(any(byte[].class));
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(pool.submit(() -> renditionService.render(rendition)));
+            }
+            // give every caller time to join the in-flight render before it completes
+            Thread.sleep(200);
+            release.countDown();
+
+            byte[] expected = results.get(0).get();
+            for (Future<byte[]> result : results) {
+                assertArrayEquals(expected, result.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(imageDecoder, times(1)).decode(any(byte[].class));
+    }
+
+    @Test
+    void render_decodesOnTheProcessingWorkers() throws Exception {
+        RenditionService.Rendition rendition = renditionService.resolve(1L, 7L, 100, null, null);
+        AtomicReference<String> decodingThread = new AtomicReference<>();
+        doAnswer(invocation -> {
+            decodingThread.set(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(imageDecoder).decode(any(byte[].class));
+
+        assertNotNull(renditionService.render(rendition));
+        assertTrue(decodingThread.get().startsWith("image-proc-"), decodingThread.get());
+    }
+
+    @Test
+    void render_failedDecode_surfacesTheCause() throws Exception {
+        RenditionService.Rendition rendition = renditionService.resolve(1L, 7L, 100, null, null);
+        doThrow(new IllegalArgumentException("corrupt")).when(imageDecoder).decode(any(byte[].class));
+
+        assertEquals("corrupt", assertThrows(IllegalArgumentException.class, () -> renditionService.render(rendition)).getMessage());
+    }
+}
@@ -0,0 +1,193 @@
+package com.api.imageIngestion.store;
+
+import com.api.imageIngestion.config.ThumbnailStoreProperties;
+import com.api.imageIngestion.entity.ThumbnailPointer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentFileThumbnailStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private SegmentFileThumbnailStore open(long segmentSize) throws IOException {
+        return open(segmentSize, "default");
+    }
+
+    private SegmentFileThumbnailStore open(long segmentSize, String namespace) throws IOException {
+        return open(segmentSize, namespace, false);
+    }
+
+    private SegmentFileThumbnailStore open(long segmentSize, String namespace, boolean clearOnStartup) throws IOException {
+        ThumbnailStoreProperties properties = new ThumbnailStoreProperties();
+        properties.setDirectory(dir.toString());
+        properties.setSegmentSize(segmentSize);
+        properties.setNamespace(namespace);
+        properties.setClearOnStartup(clearOnStartup);
+        return new SegmentFileThumbnailStore(properties);
+    }
+
+    @Test
+    void append_thenRead_returnsSameBytes() throws IOException {
+        SegmentFileThumbnailStore store = open(1024);
+
+        ThumbnailPointer first = store.append(1L, new byte[]{1, 2, 3});
+        ThumbnailPointer second = store.append(2L, new byte[]{4, 5});
+
+        assertArrayEquals(new byte[]{1, 2, 3}, store.readBytes(first));
+        assertArrayEquals(new byte[]{4, 5}, store.readBytes(second));
+        ByteBuffer view = store.read(second);
+        assertEquals(2, view.remaining());
+        assertTrue(view.isReadOnly());
+        store.close();
+    }
+
+    @Test
+    void append_pastSegmentSize_rollsToNewSegment() throws IOException {
+        SegmentFileThumbnailStore store = open(SegmentFileThumbnailStore.HEADER_BYTES + 10);
+
+        ThumbnailPointer first = store.append(1L, new byte[10]);
+        ThumbnailPointer second = store.append(2L, new byte[10]);
+
+        assertNotEquals(first.getSegment(), second.getSegment());
+        try (var segments = Files.list(dir.resolve("default"))) {
+            assertEquals(2, segments.filter(p -> p.getFileName().toString().startsWith("segment-")).count());
+        }
+        store.close();
+    }
+
+    @Test
+    void interleavedAppendsAndReads_remapTheGrowingSegmentOnlyWhenItDoubles() throws IOException {
+        SegmentFileThumbnailStore store = open(1 << 20);
+        List<ThumbnailPointer> pointers = new ArrayList<>();
+        List<Long> mappings = new ArrayList<>();
+
+        for (int i = 0; i < 500; i++) {
+            pointers.add(store.append(i, new byte[]{(byte) i, (byte) (i >> 8), 7}));
+            // the newest record and an old one, as concurrent uploads and thumbnail reads would
+            assertArrayEquals(new byte[]{(byte) i, (byte) (i >> 8), 7}, store.readBytes(pointers.get(i)));
+            assertArrayEquals(new byte[]{(byte) (i / 2), (byte) (i / 2 >> 8), 7}, store.readBytes(pointers.get(i / 2)));
+            long mapped = store.mappedBytes(pointers.get(i).getSegment());
+            if (mappings.isEmpty() || mappings.get(mappings.size() - 1) != mapped) {
+                mappings.add(mapped);
+            }
+        }
+
+        for (int i = 1; i < mappings.size(); i++) {
+            assertTrue(mappings.get(i) >= 2 * mappings.get(i - 1), "mapping grew from " + mappings.get(i - 1) + " to " + mappings.get(i));
+        }
+        assertTrue(mappings.size() <= 13, "segment was mapped " + mappings.size() + " times");
+        store.close();
+    }
+
+    @Test
+    void read_fromRolledSegment_mapsItsWholeTail() throws IOException {
+        SegmentFileThumbnailStore store = open(3 * (SegmentFileThumbnailStore.HEADER_BYTES + 10));
+
+        ThumbnailPointer first = store.append(1L, new byte[10]);
+        store.readBytes(first);
+        ThumbnailPointer second = store.append(2L, new byte[10]);
+        store.append(3L, new byte[10]);
+        ThumbnailPointer next = store.append(4L, new byte[10]);
+
+        assertNotEquals(first.getSegment(), next.getSegment());
+        store.readBytes(second);
+        assertEquals(3L * (SegmentFileThumbnailStore.HEADER_BYTES + 10), store.mappedBytes(first.getSegment()));
+        store.close();
+    }
+
+    @Test
+    void reopen_truncatesTornTail() throws IOException {
+        SegmentFileThumbnailStore store = open(1024);
+        ThumbnailPointer first = store.append(1L, new byte[]{9, 9});
+        ThumbnailPointer pointer = store.append(2L, new byte[]{1, 2, 3, 4});
+        store.close();
+
+        Path segment = dir.resolve("default").resolve("segment-00000001.log");
+        long goodSize = Files.size(segment);
+        // half-written record at the tail
+        Files.write(segment, new byte[]{0x54, 0x48, 0x4D}, StandardOpenOption.APPEND);
+
+        SegmentFileThumbnailStore reopened = open(1024);
+        assertEquals(goodSize, Files.size(segment));
+        assertArrayEquals(new byte[]{1, 2, 3, 4}, reopened.readBytes(pointer));
+        assertArrayEquals(new byte[]{9, 9}, reopened.readBytes(first));
+
+        ThumbnailPointer appended = reopened.append(3L, new byte[]{5});
+        assertEquals(goodSize + SegmentFileThumbnailStore.HEADER_BYTES, appended.getOffset());
+        reopened.close();
+    }
+
+    @Test
+    void read_withUnknownSegment_shouldThrow() throws IOException {
+        SegmentFileThumbnailStore store = open(1024);
+        assertThrows(IOException.class, () -> store.read(new ThumbnailPointer("default", 42, 0L, 1)));
+        assertThrows(IOException.class, () -> store.read(new ThumbnailPointer("other", 1, 0L, 1)));
+        store.close();
+    }
+
+    @Test
+    void storesSharingADirectory_appendToOwnNamespacesAndReadEachOther() throws IOException {
+        SegmentFileThumbnailStore a = open(1024, "node-a");
+        SegmentFileThumbnailStore b = open(1024, "node-b");
+
+        ThumbnailPointer fromA = a.append(1L, new byte[]{1, 2});
+        ThumbnailPointer fromB = b.append(2L, new byte[]{3, 4, 5});
+        assertEquals("node-a", fromA.getNamespace());
+        assertEquals("node-b", fromB.getNamespace());
+        assertEquals(fromA.getOffset(), fromB.getOffset());
+
+        assertArrayEquals(new byte[]{3, 4, 5}, a.readBytes(fromB));
+        assertArrayEquals(new byte[]{1, 2}, b.readBytes(fromA));
+        // the other instance's active segment keeps growing after it was first read
+        ThumbnailPointer later = b.append(3L, new byte[]{6});
+        assertArrayEquals(new byte[]{6}, a.readBytes(later));
+        a.close();
+        b.close();
+    }
+
+    @Test
+    void open_withClearOnStartup_deletesSegmentsOfUnheldNamespacesOnly() throws IOException {
+        SegmentFileThumbnailStore running = open(1024, "node-a");
+        ThumbnailPointer kept = running.append(1L, new byte[]{1});
+        SegmentFileThumbnailStore earlier = open(1024, "node-b");
+        ThumbnailPointer stale = earlier.append(2L, new byte[]{2});
+        SegmentFileThumbnailStore gone = open(1024, "node-c");
+        gone.append(3L, new byte[]{3});
+        earlier.close();
+        gone.close();
+
+        SegmentFileThumbnailStore restarted = open(1024, "node-b", true);
+
+        try (var segments = Files.list(dir.resolve("node-b"))) {
+            assertEquals(0, segments.filter(p -> p.getFileName().toString().startsWith("segment-")).count());
+        }
+        try (var segments = Files.list(dir.resolve("node-c"))) {
+            assertEquals(0, segments.filter(p -> p.getFileName().toString().startsWith("segment-")).count());
+        }
+        assertThrows(IOException.class, () -> restarted.read(stale));
+        assertArrayEquals(new byte[]{1}, restarted.readBytes(kept));
+        restarted.close();
+        running.close();
+    }
+
+    @Test
+    void open_withNamespaceHeldByAnotherStore_shouldFail() throws IOException {
+        SegmentFileThumbnailStore store = open(1024, "node-a");
+
+        assertThrows(IllegalStateException.class, () -> open(1024, "node-a"));
+
+        store.close();
+        open(1024, "node-a").close();
+    }
+}